@@ -3,6 +3,8 @@ package com.futurefrost.frostedlib;
 import com.futurefrost.frostedlib.command.FrostedCommands;
 import com.futurefrost.frostedlib.registry.ModActions;
 import com.futurefrost.frostedlib.registry.ModComponents;
+import com.futurefrost.frostedlib.registry.ModEvents;
+import com.futurefrost.frostedlib.registry.ModGameRules;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import org.slf4j.Logger;
@@ -39,6 +41,22 @@ public class FrostedLib implements ModInitializer {
 			LOGGER.error("Failed to Register Action Types", e);
 		}
 
+		// Register game rules
+		try {
+			ModGameRules.init();
+			LOGGER.info("Game Rules Registered");
+		} catch (Exception e) {
+			LOGGER.error("Failed to Register Game Rules", e);
+		}
+
+		// Register server tick and lifecycle hooks
+		try {
+			ModEvents.init();
+			LOGGER.info("Server Events Registered");
+		} catch (Exception e) {
+			LOGGER.error("Failed to Register Server Events", e);
+		}
+
 		// Register commands HERE instead of in server initializer
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
 			LOGGER.info("Registering FrostedLib Commands on Client!");
@@ -14,9 +14,14 @@ import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public abstract class BaseTeleportAction {
 
@@ -38,7 +43,14 @@ public abstract class BaseTeleportAction {
                 .add("strict_height", SerializableDataTypes.BOOLEAN, false)
                 .add("liquids_safe", SerializableDataTypes.BOOLEAN, false)
                 .add("liquid_condition", ApoliDataTypes.BLOCK_CONDITION, null)
-                .add("error_message", SerializableDataTypes.STRING, null);
+                .add("error_message", SerializableDataTypes.STRING, null)
+                .add("max_search_millis", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("max_chunk_loads", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("warmup_ticks", SerializableDataTypes.INT, 0)  // Load the destination this long before moving
+                .add("group_radius", SerializableDataTypes.DOUBLE, 0.0)  // 0 = only the entity itself
+                .add("group_condition", ApoliDataTypes.BIENTITY_CONDITION, null)  // Actor is the entity, target the member
+                .add("group_entity_condition", ApoliDataTypes.ENTITY_CONDITION, null)
+                .add("group_spread", SerializableDataTypes.INT, 4);  // How far members may land from the entity
     }
 
     // Method for actions that want "exposed" as default (relative teleport)
@@ -58,20 +70,43 @@ public abstract class BaseTeleportAction {
     protected final PlatformGenerator platformGenerator;
     protected final MountHandler mountHandler;
 
+    // Collaborators are stateless and shared. Actions only ever run on the server thread,
+    // so anything per-execution lives on the stack rather than in fields.
     public BaseTeleportAction() {
-        this.errorHandler = new ErrorHandler();
-        this.positionFinder = new PositionFinder();
-        this.platformGenerator = new PlatformGenerator();
-        this.mountHandler = new MountHandler();
+        this.errorHandler = ErrorHandler.INSTANCE;
+        this.positionFinder = PositionFinder.INSTANCE;
+        this.platformGenerator = PlatformGenerator.INSTANCE;
+        this.mountHandler = MountHandler.INSTANCE;
     }
 
-    // Template method pattern - subclasses implement specific logic
-    protected abstract Vec3d calculateTargetPosition(SerializableData.Instance data, Entity entity, ServerWorld targetWorld);
-
     protected abstract Vec3d calculateSearchStartPosition(SerializableData.Instance data, Entity entity, ServerWorld targetWorld);
 
     protected abstract SerializableData getData();
 
+    // Whether the base position still needs height adjustment and a safe spot search.
+    // Actions that already pick a safe spot while searching (biome, structure) return false.
+    protected boolean needsPositionSearch() {
+        return true;
+    }
+
+    // Where requests from this action wait in the teleport queue
+    protected TeleportQueue.Priority getQueuePriority() {
+        return TeleportQueue.Priority.DIRECT;
+    }
+
+    // Resolves the base target position. Most actions answer inline through calculateTargetPosition;
+    // actions with expensive searches override this instead and complete later on the server thread.
+    protected CompletableFuture<TeleportOutcome> resolveTargetPosition(SerializableData.Instance data, Entity entity,
+                                                                       ServerWorld targetWorld, SearchBudget budget) {
+        return CompletableFuture.completedFuture(calculateTargetPosition(data, entity, targetWorld, budget));
+    }
+
+    // The inline target position, for actions that don't override resolveTargetPosition
+    protected TeleportOutcome calculateTargetPosition(SerializableData.Instance data, Entity entity,
+                                                      ServerWorld targetWorld, SearchBudget budget) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " resolves its target asynchronously");
+    }
+
     public void execute(SerializableData.Instance data, Entity entity) {
         // Return early if on client side
         if (entity.getWorld().isClient) {
@@ -85,93 +120,172 @@ public abstract class BaseTeleportAction {
             return;
         }
 
-        try {
+        // The data instance identifies the power, so the same power firing again joins the first request
+        TeleportQueue.submit(entity, getQueuePriority(), data, () -> run(data, entity));
+    }
+
+    // Runs the pipeline once the queue admits the request
+    private void run(SerializableData.Instance data, Entity entity) {
+        // Budgets start counting once the queue admits the request, not while it waits
+        SearchBudget budget = SearchBudget.fromData(data, entity.getServer());
 
-            if (entity.getServer() == null) {
-                errorHandler.handleRuntimeError(data, entity, new RuntimeException("Entity server is null"));
+        try {
+            // 1. Get target dimension
+            ServerWorld targetWorld = getTargetWorld(data, entity);
+            if (targetWorld == null) {
+                RegistryKey<World> dimensionKey = getTargetDimensionKey(data, entity);
+                errorHandler.handleDimensionNotFound(data, entity, dimensionKey);
                 return;
             }
 
-            try {
-                // 1. Get target dimension
-                ServerWorld targetWorld = getTargetWorld(data, entity);
-                if (targetWorld == null) {
-                    RegistryKey<World> dimensionKey = getTargetDimensionKey(data, entity);
-                    errorHandler.handleDimensionNotFound(data, entity, dimensionKey);
+            // 2. Calculate base position (subclass-specific)
+            CompletableFuture<TeleportOutcome> resolved = resolveTargetPosition(data, entity, targetWorld, budget);
+            TeleportQueue.trackInFlight(entity, data, resolved);
+
+            resolved.whenComplete((outcome, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ?
+                            error.getCause() : error;
+
+                    if (cause instanceof CancellationException) {
+                        return; // The entity left or a newer request replaced this one
+                    }
+                    errorHandler.handleRuntimeError(data, entity,
+                            cause instanceof Exception exception ? exception : new RuntimeException(cause));
                     return;
                 }
 
-                // 2. Calculate base position (subclass-specific)
-                Vec3d basePosition;
-                try {
-                    basePosition = calculateTargetPosition(data, entity, targetWorld);
-                } catch (IllegalArgumentException e) {
-                    errorHandler.handleValidationError(data, entity, e.getMessage());
-                    return;
-                } catch (RuntimeException e) {
-                    String errorMsg = e.getMessage();
-                    if (errorMsg.contains("biome")) {
-                        errorHandler.handleBiomeNotFound(data, entity, errorMsg);
-                    } else if (errorMsg.contains("structure")) {
-                        errorHandler.handleStructureNotFound(data, entity, errorMsg);
-                    } else {
-                        errorHandler.handleRuntimeError(data, entity, e);
-                    }
+                if (!outcome.isSuccess()) {
+                    errorHandler.handleOutcome(data, entity, outcome, targetWorld.getRegistryKey());
                     return;
                 }
 
-                // 3. Check if we need height adjustment (only for relative/fixed teleports)
-                String className = this.getClass().getSimpleName();
-                Vec3d finalPosition;
+                if (entity.isRemoved()) {
+                    return;
+                }
 
-                if (className.contains("StructureTeleportAction") || className.contains("BiomeTeleportAction")) {
-                    // For structure/biome teleports, use position as-is (should already be safe)
-                    finalPosition = basePosition;
-                } else {
-                    // For relative/fixed teleports, apply height adjustment if specified
-                    finalPosition = applyTargetHeightAsSecondary(data, entity, targetWorld, basePosition);
+                try {
+                    teleportToTargetPosition(data, entity, targetWorld, outcome.position(), budget);
+                } catch (Exception e) {
+                    errorHandler.handleRuntimeError(data, entity, e);
                 }
+            });
+        } catch (Exception e) {
+            errorHandler.handleRuntimeError(data, entity, e);
+        }
+    }
 
-                // 4. Apply random offset (if any)
-                Vec3d randomizedPosition = applyRandomOffset(data, finalPosition);
+    // Steps 3-6 of the pipeline, run on the server thread once the base position is known
+    private void teleportToTargetPosition(SerializableData.Instance data, Entity entity,
+                                          ServerWorld targetWorld, Vec3d basePosition, SearchBudget budget) {
+        boolean needsPositionSearch = needsPositionSearch();
 
-                // 5. Find safe position (with height already considered for relative/fixed)
-                Vec3d safePosition;
+        // 3. Apply height adjustment (only for actions that search afterwards)
+        Vec3d finalPosition = needsPositionSearch ?
+                applyTargetHeightAsSecondary(data, entity, targetWorld, basePosition, budget) :
+                basePosition;
 
-                if (className.contains("StructureTeleportAction") || className.contains("BiomeTeleportAction")) {
-                    // Structure/biome teleports should already have safe positions
-                    safePosition = randomizedPosition;
+        // 4. Apply random offset (if any)
+        Vec3d randomizedPosition = applyRandomOffset(data, targetWorld, finalPosition);
+
+        // 5. Find safe position (with height already considered for relative/fixed)
+        Vec3d safePosition;
+
+        if (needsPositionSearch) {
+            safePosition = positionFinder.findSafePosition(
+                    data, entity, targetWorld,
+                    (int) randomizedPosition.x, (int) randomizedPosition.z, budget
+            );
+        } else {
+            // The action's own search already produced a safe position
+            safePosition = randomizedPosition;
+        }
+
+        if (safePosition == null) {
+            if (budget.getExceeded() != null) {
+                errorHandler.handleBudgetExceeded(data, entity, budget, basePosition, targetWorld.getRegistryKey());
+            } else {
+                errorHandler.handleNoSafePosition(data, entity, basePosition, targetWorld.getRegistryKey());
+            }
+            return;
+        }
+
+        // Entities around this one come along, spread around the spot that was just found
+        List<GroupPlacer.Placement> placements = new ArrayList<>();
+        placements.add(new GroupPlacer.Placement(entity, safePosition));
+
+        List<Entity> members = GroupPlacer.INSTANCE.collectMembers(data, entity);
+        if (!members.isEmpty()) {
+            for (GroupPlacer.Placement placement : GroupPlacer.INSTANCE.place(data, targetWorld, safePosition, members, budget)) {
+                if (placement.position() != null) {
+                    placements.add(placement);
+                } else if (budget.getExceeded() != null) {
+                    errorHandler.handleBudgetExceeded(data, placement.entity(), budget, safePosition, targetWorld.getRegistryKey());
                 } else {
-                    // Relative/fixed teleports need to find safe position
-                    safePosition = positionFinder.findSafePosition(
-                            data, entity, targetWorld,
-                            (int) randomizedPosition.x, (int) randomizedPosition.z
-                    );
+                    errorHandler.handleNoSafePosition(data, placement.entity(), safePosition, targetWorld.getRegistryKey());
                 }
+            }
+        }
 
-                if (safePosition == null) {
-                    errorHandler.handleNoSafePosition(data, entity, basePosition, targetWorld.getRegistryKey());
-                    return;
-                }
+        // 6. Warm up the destination chunks first, if configured
+        int warmupTicks = Math.min(data.getInt("warmup_ticks"), ChunkPrefetcher.MAX_WARMUP_TICKS);
+        if (warmupTicks > 0) {
+            warmUpAndTeleport(data, entity, targetWorld, placements, warmupTicks);
+            return;
+        }
 
-                // 6. Handle teleport with mount
-                boolean success = mountHandler.teleportWithMount(entity, targetWorld, safePosition,
-                        data.getBoolean("bring_mount"));
+        for (GroupPlacer.Placement placement : placements) {
+            commitTeleport(data, placement.entity(), targetWorld, placement.position());
+        }
+    }
 
-                if (!success) {
-                    errorHandler.handleTeleportFailed(data, entity, safePosition, targetWorld.getRegistryKey());
-                    return;
+    private void warmUpAndTeleport(SerializableData.Instance data, Entity entity, ServerWorld targetWorld,
+                                   List<GroupPlacer.Placement> placements, int warmupTicks) {
+        // The group lands around the entity's spot, so one prefetch covers everyone
+        ChunkPrefetcher.Prefetch prefetch = ChunkPrefetcher.prefetch(targetWorld, placements.get(0).position(), entity);
+
+        // Tracked like a search, so a newer request for the entity cancels the pending teleport
+        CompletableFuture<Void> warmup = new CompletableFuture<>();
+        TeleportQueue.trackInFlight(entity, data, warmup);
+
+        ServerTaskScheduler.schedule(targetWorld.getServer(), warmupTicks, () -> {
+            if (!warmup.isCancelled() && !entity.isRemoved()) {
+                for (GroupPlacer.Placement placement : placements) {
+                    if (placement.entity().isRemoved()) continue;
+                    try {
+                        commitTeleport(data, placement.entity(), targetWorld, placement.position());
+                    } catch (Exception e) {
+                        errorHandler.handleRuntimeError(data, placement.entity(), e);
+                    }
                 }
+            }
+            warmup.complete(null);
+            prefetch.release();
+        });
+    }
+
+    // Steps 7-8: move the entity at the end of the tick and report success
+    private void commitTeleport(SerializableData.Instance data, Entity entity, ServerWorld targetWorld,
+                                Vec3d safePosition) {
+        // 7. Handle teleport with mount
+        boolean bringMount = data.getBoolean("bring_mount");
+        CompletableFuture<Boolean> commit = TeleportCommitQueue.submit(entity, targetWorld, safePosition,
+                () -> mountHandler.teleportWithMount(entity, targetWorld, safePosition, bringMount));
 
-                // 7. Show success message
-                showSuccessMessage(data, entity, targetWorld);
+        // Still cancellable by a newer request until the queue is flushed
+        TeleportQueue.trackInFlight(entity, data, commit);
 
-            } catch (Exception e) {
-                errorHandler.handleRuntimeError(data, entity, e);
+        commit.whenComplete((success, error) -> {
+            if (error != null) return; // Replaced, cancelled or the entity removed before the move
+
+            if (!success) {
+                errorHandler.handleTeleportFailed(data, entity, safePosition, targetWorld.getRegistryKey());
+                return;
             }
-        } catch (Exception e) {
-            errorHandler.handleRuntimeError(data, entity, e);
-        }
+
+            // 8. Show success message
+            showSuccessMessage(data, entity, targetWorld);
+        });
     }
 
     // Common helper methods
@@ -188,11 +302,12 @@ public abstract class BaseTeleportAction {
         return entity.getWorld().getRegistryKey();
     }
 
-    protected Vec3d applyRandomOffset(SerializableData.Instance data, Vec3d position) {
+    protected Vec3d applyRandomOffset(SerializableData.Instance data, ServerWorld targetWorld, Vec3d position) {
         double randomLimit = data.getDouble("random_offset");
         if (randomLimit <= 0) return position;
 
-        Random random = new Random();
+        // The world's random is confined to the server thread, just like the actions
+        Random random = targetWorld.getRandom();
         double offsetX = (random.nextDouble() * 2 - 1) * randomLimit;
         double offsetZ = (random.nextDouble() * 2 - 1) * randomLimit;
         return new Vec3d(position.x + offsetX, position.y, position.z + offsetZ);
@@ -235,7 +350,7 @@ public abstract class BaseTeleportAction {
 
     // Apply target_height as secondary condition (only for relative/fixed teleports)
     protected Vec3d applyTargetHeightAsSecondary(SerializableData.Instance data, Entity entity,
-                                                 ServerWorld targetWorld, Vec3d basePosition) {
+                                                 ServerWorld targetWorld, Vec3d basePosition, SearchBudget budget) {
         String heightMode = data.getString("target_height");
         if (heightMode == null || heightMode.isEmpty()) {
             return basePosition; // No height mode specified, keep original position
@@ -259,6 +374,10 @@ public abstract class BaseTeleportAction {
 
         boolean strictHeight = data.getBoolean("strict_height");
 
+        if (!budget.tryColumn(targetWorld, centerX, centerZ)) {
+            return basePosition; // Out of budget, the safe position search will report it
+        }
+
         // Search for a safe position with the desired height mode
         Vec3d heightAdjustedPos = positionFinder.findSafeHeightPosition(
                 data, targetWorld, centerX, centerZ, heightMode, preferredY, strictHeight
@@ -272,7 +391,7 @@ public abstract class BaseTeleportAction {
 
         // Otherwise try expanding search
         Vec3d expandedPos = findHeightAdjustedPositionWithSearch(
-                data, entity, targetWorld, centerX, centerZ, heightMode, preferredY, strictHeight
+                data, entity, targetWorld, centerX, centerZ, heightMode, preferredY, strictHeight, budget
         );
 
         return expandedPos != null ? expandedPos : basePosition;
@@ -280,9 +399,11 @@ public abstract class BaseTeleportAction {
 
     private Vec3d findHeightAdjustedPositionWithSearch(SerializableData.Instance data, Entity entity,
                                                        ServerWorld world, int centerX, int centerZ,
-                                                       String heightMode, double preferredY, boolean strictHeight) {
-        int maxSearchRadius = Math.min(data.getInt("search_radius"), 32);
-        int maxSearchAttempts = Math.min(data.getInt("max_search_attempts"), 20);
+                                                       String heightMode, double preferredY, boolean strictHeight,
+                                                       SearchBudget budget) {
+        // Scaled down while the server is under load
+        int maxSearchRadius = budget.getEffort().scale(Math.min(data.getInt("search_radius"), 32));
+        int maxSearchAttempts = budget.getEffort().scale(Math.min(data.getInt("max_search_attempts"), 20));
 
         int totalAttempts = 0;
 
@@ -295,6 +416,10 @@ public abstract class BaseTeleportAction {
                 int x = centerX + (int) (radius * Math.cos(angle));
                 int z = centerZ + (int) (radius * Math.sin(angle));
 
+                if (!budget.tryColumn(world, x, z)) {
+                    return null;
+                }
+
                 Vec3d testPos = positionFinder.findSafeHeightPosition(
                         data, world, x, z, heightMode, preferredY, strictHeight
                 );
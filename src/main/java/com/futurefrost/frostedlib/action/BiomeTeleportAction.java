@@ -1,9 +1,15 @@
 package com.futurefrost.frostedlib.action;
 
+import com.futurefrost.frostedlib.util.ErrorHandler;
+import com.futurefrost.frostedlib.util.SearchBudget;
+import com.futurefrost.frostedlib.util.TeleportOutcome;
+import com.futurefrost.frostedlib.util.TeleportQueue;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
 import io.github.apace100.calio.data.SerializableDataTypes;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.registry.Registry;
@@ -15,7 +21,9 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.biome.Biome;
-import com.mojang.datafixers.util.Pair;
+import net.minecraft.world.biome.source.BiomeCoords;
+import net.minecraft.world.biome.source.BiomeSource;
+import net.minecraft.world.biome.source.util.MultiNoiseUtil;
 
 import java.util.Optional;
 
@@ -23,6 +31,12 @@ public class BiomeTeleportAction extends BaseTeleportAction {
 
     private static final SerializableData DATA;
 
+    // Horizontal and vertical spacing (in blocks) between biome samples
+    private static final int BIOME_CHECK_INTERVAL = 64;
+
+    // Actions hold no per-execution state, so every power shares one instance
+    private static final BiomeTeleportAction INSTANCE = new BiomeTeleportAction();
+
     static {
         DATA = new SerializableData()
                 .add("target_dimension", SerializableDataTypes.IDENTIFIER, null)
@@ -40,6 +54,13 @@ public class BiomeTeleportAction extends BaseTeleportAction {
                 .add("liquids_safe", SerializableDataTypes.BOOLEAN, false)
                 .add("liquid_condition", ApoliDataTypes.BLOCK_CONDITION, null)
                 .add("error_message", SerializableDataTypes.STRING, null)
+                .add("max_search_millis", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("max_chunk_loads", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("warmup_ticks", SerializableDataTypes.INT, 0)  // Load the destination this long before moving
+                .add("group_radius", SerializableDataTypes.DOUBLE, 0.0)  // 0 = only the entity itself
+                .add("group_condition", ApoliDataTypes.BIENTITY_CONDITION, null)  // Actor is the entity, target the member
+                .add("group_entity_condition", ApoliDataTypes.ENTITY_CONDITION, null)
+                .add("group_spread", SerializableDataTypes.INT, 4)  // How far members may land from the entity
                 // Biome specific fields
                 .add("biome_id", SerializableDataTypes.IDENTIFIER)
                 .add("chunk_search_radius", SerializableDataTypes.INT, 6400)
@@ -47,10 +68,22 @@ public class BiomeTeleportAction extends BaseTeleportAction {
     }
 
     @Override
-    protected Vec3d calculateTargetPosition(SerializableData.Instance data, Entity entity, ServerWorld world) {
+    protected TeleportQueue.Priority getQueuePriority() {
+        return TeleportQueue.Priority.SEARCH;
+    }
+
+    @Override
+    protected boolean needsPositionSearch() {
+        return false; // A safe spot is picked inside the biome below
+    }
+
+    @Override
+    protected TeleportOutcome calculateTargetPosition(SerializableData.Instance data, Entity entity,
+                                                      ServerWorld world, SearchBudget budget) {
         Identifier biomeId = data.getId("biome_id");
         if (biomeId == null) {
-            throw new IllegalArgumentException("Parameter 'biome_id' must be specified for biome teleport");
+            return TeleportOutcome.failure(ErrorHandler.ErrorType.VALIDATION_ERROR,
+                    "Parameter 'biome_id' must be specified for biome teleport");
         }
 
         Registry<Biome> biomeRegistry = world.getRegistryManager().get(RegistryKeys.BIOME);
@@ -59,44 +92,95 @@ public class BiomeTeleportAction extends BaseTeleportAction {
         Optional<RegistryEntry.Reference<Biome>> biomeEntry = biomeRegistry.getEntry(biomeKey);
 
         if (biomeEntry.isEmpty()) {
-            throw new IllegalArgumentException("Biome not found in registry: " + biomeId);
+            return TeleportOutcome.failure(ErrorHandler.ErrorType.VALIDATION_ERROR,
+                    "Biome not found in registry: " + biomeId);
         }
 
         RegistryEntry<Biome> targetBiome = biomeEntry.get();
-        int searchRadius = data.getInt("chunk_search_radius");
+        int searchRadius = budget.getEffort().scale(data.getInt("chunk_search_radius"));
         double scaleFactor = data.getDouble("scale_factor");
 
         // Calculate search start position using scale factor
         BlockPos searchStartPos = calculateScaledSearchPosition(entity, world, scaleFactor);
 
         // Search for biome
-        Pair<BlockPos, RegistryEntry<Biome>> biomeResult = world.locateBiome(
-                biome -> biome.equals(targetBiome),
-                searchStartPos,
-                searchRadius,
-                64,
-                64
-        );
+        BlockPos biomePos = locateBiome(world, targetBiome, searchStartPos, searchRadius, budget);
 
-        if (biomeResult == null) {
-            throw new RuntimeException("Could not find biome: " + biomeId +
-                    " within radius " + searchRadius + " in dimension " + world.getRegistryKey().getValue());
+        if (biomePos == null && budget.isExhausted()) {
+            return TeleportOutcome.budgetExceeded(budget);
         }
 
-        BlockPos biomePos = biomeResult.getFirst();
+        if (biomePos == null) {
+            return TeleportOutcome.failure(ErrorHandler.ErrorType.BIOME_NOT_FOUND,
+                    "Could not find biome: " + biomeId + " within radius " + searchRadius +
+                    " in dimension " + world.getRegistryKey().getValue());
+        }
 
         // Find a safe position at this biome location
-        BlockPos safePos = findSafePositionInBiome(world, biomePos);
+        BlockPos safePos = findSafePositionInBiome(world, biomePos, budget);
 
         if (safePos != null) {
-            return new Vec3d(safePos.getX() + 0.5, safePos.getY(), safePos.getZ() + 0.5);
+            return TeleportOutcome.success(new Vec3d(safePos.getX() + 0.5, safePos.getY(), safePos.getZ() + 0.5));
         }
 
         // Fallback to biome position
-        return new Vec3d(biomePos.getX() + 0.5, biomePos.getY(), biomePos.getZ() + 0.5);
+        return TeleportOutcome.success(new Vec3d(biomePos.getX() + 0.5, biomePos.getY(), biomePos.getZ() + 0.5));
     }
 
-    private BlockPos findSafePositionInBiome(ServerWorld world, BlockPos biomePos) {
+    // Same square-ring walk as World.locateBiome, but it checks the budget between rings
+    private BlockPos locateBiome(ServerWorld world, RegistryEntry<Biome> targetBiome, BlockPos origin, int radius,
+                                 SearchBudget budget) {
+        BiomeSource biomeSource = world.getChunkManager().getChunkGenerator().getBiomeSource();
+        if (!biomeSource.getBiomes().contains(targetBiome)) {
+            return null; // Can't generate in this dimension at all
+        }
+
+        MultiNoiseUtil.MultiNoiseSampler sampler = world.getChunkManager().getNoiseConfig().getMultiNoiseSampler();
+        int[] sampleYs = getSampleHeights(world, origin.getY());
+        int rings = Math.floorDiv(radius, BIOME_CHECK_INTERVAL);
+
+        for (int ring = 0; ring <= rings; ring++) {
+            if (budget.isExhausted()) return null;
+
+            for (int dx = -ring; dx <= ring; dx++) {
+                boolean edgeX = dx == -ring || dx == ring;
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (!edgeX && dz != -ring && dz != ring) continue; // Only the perimeter of this ring
+
+                    int x = origin.getX() + dx * BIOME_CHECK_INTERVAL;
+                    int z = origin.getZ() + dz * BIOME_CHECK_INTERVAL;
+
+                    for (int y : sampleYs) {
+                        RegistryEntry<Biome> biome = biomeSource.getBiome(
+                                BiomeCoords.fromBlock(x), BiomeCoords.fromBlock(y), BiomeCoords.fromBlock(z), sampler);
+                        if (biome.equals(targetBiome)) {
+                            return new BlockPos(x, y, z);
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Heights to sample in each column, nearest to the start height first
+    private int[] getSampleHeights(ServerWorld world, int startY) {
+        int bottom = world.getBottomY() + 1;
+        int top = world.getTopY() - 1;
+        startY = Math.max(bottom, Math.min(top, startY));
+
+        IntList heights = new IntArrayList();
+        heights.add(startY);
+        for (int offset = BIOME_CHECK_INTERVAL; startY - offset >= bottom || startY + offset <= top;
+             offset += BIOME_CHECK_INTERVAL) {
+            if (startY + offset <= top) heights.add(startY + offset);
+            if (startY - offset >= bottom) heights.add(startY - offset);
+        }
+        return heights.toIntArray();
+    }
+
+    private BlockPos findSafePositionInBiome(ServerWorld world, BlockPos biomePos, SearchBudget budget) {
         // Search for a safe surface position at or near the biome location
         int searchRadius = 16;
 
@@ -110,6 +194,11 @@ public class BiomeTeleportAction extends BaseTeleportAction {
                     int x = biomePos.getX() + dx;
                     int z = biomePos.getZ() + dz;
 
+                    // Out of budget: settle for the fallback at the biome position
+                    if (!budget.tryColumn(world, x, z)) {
+                        return null;
+                    }
+
                     // Find surface position at this XZ
                     BlockPos surfacePos = findSurfacePosition(world, x, z);
                     if (surfacePos != null && isPositionSafeForEntity(world, surfacePos)) {
@@ -171,7 +260,7 @@ public class BiomeTeleportAction extends BaseTeleportAction {
         return new ActionFactory<>(
                 Identifier.of("frostedlib", "biome_teleport"),
                 DATA,
-                (data, entity) -> new BiomeTeleportAction().execute(data, entity)
+                INSTANCE::execute
         );
     }
 }
\ No newline at end of file
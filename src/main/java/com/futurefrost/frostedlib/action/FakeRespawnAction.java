@@ -1,179 +1,104 @@
 package com.futurefrost.frostedlib.action;
 
 import com.futurefrost.frostedlib.FrostedLib;
-import com.futurefrost.frostedlib.util.TeleportHelper;
+import com.futurefrost.frostedlib.util.ReturnPipeline;
+import com.futurefrost.frostedlib.util.TeleportQueue;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
 import io.github.apace100.calio.data.SerializableDataTypes;
-import net.minecraft.block.BedBlock;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.RespawnAnchorBlock;
 import net.minecraft.entity.Entity;
-import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.world.World;
 
-import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class FakeRespawnAction {
 
     public static void action(SerializableData.Instance data, Entity entity) {
+        if (entity.getWorld().isClient) return;
+
+        // Cheapest kind of teleport, admitted ahead of any search
+        TeleportQueue.submit(entity, TeleportQueue.Priority.RETURN, data, () -> run(data, entity));
+    }
+
+    private static void run(SerializableData.Instance data, Entity entity) {
         MinecraftServer server = entity.getServer();
         if (server == null) return;
 
         boolean prioritizeSetSpawn = data.getBoolean("prioritize_set_spawn");
         boolean showMessage = data.getBoolean("show_message");
 
-        ServerWorld targetWorld;
-        Vec3d spawnLocation;
-        String spawnType;
-
         if (entity instanceof ServerPlayerEntity player) {
             // PLAYER LOGIC
-            RegistryKey<World> spawnDimension = player.getSpawnPointDimension();
-            BlockPos spawnBlockPos = player.getSpawnPointPosition();
-
             if (prioritizeSetSpawn) {
-                spawnType = "set spawn";
-                boolean hasValidSetSpawn = false;
-                targetWorld = null;
-
-                if (spawnBlockPos != null && spawnDimension != null) {
-                    targetWorld = server.getWorld(spawnDimension);
-
-                    if (targetWorld != null) {
-                        if (spawnDimension == World.OVERWORLD) {
-                            BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                            boolean isBed = blockState.getBlock() instanceof BedBlock;
-                            boolean isWorldSpawn = spawnBlockPos.equals(targetWorld.getSpawnPos());
-                            hasValidSetSpawn = isBed && !isWorldSpawn;
-
-                            if (!hasValidSetSpawn) {
-                                spawnType = "world spawn (no valid bed)";
-                            }
-                        } else if (spawnDimension == World.NETHER) {
-                            BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                            boolean isRespawnAnchor = blockState.getBlock() instanceof RespawnAnchorBlock;
-                            boolean isCharged = isRespawnAnchor && blockState.get(RespawnAnchorBlock.CHARGES) > 0;
-                            hasValidSetSpawn = isRespawnAnchor && isCharged;
-
-                            if (!hasValidSetSpawn) {
-                                spawnType = "world spawn (no valid anchor)";
-                            }
-                        } else {
-                            hasValidSetSpawn = true;
-                        }
-                    }
-                }
-
-                if (!hasValidSetSpawn || targetWorld == null) {
-                    targetWorld = server.getOverworld();
-                    spawnBlockPos = targetWorld.getSpawnPos();
-                    spawnType = "world spawn";
-                }
-
-                if (hasValidSetSpawn && spawnBlockPos != null) {
-                    Optional<Vec3d> safeSpawn = net.minecraft.entity.player.PlayerEntity.findRespawnPosition(
-                            targetWorld,
-                            spawnBlockPos,
-                            player.getSpawnAngle(),
-                            false,
-                            true
-                    );
-
-                    if (safeSpawn.isPresent()) {
-                        spawnLocation = safeSpawn.get();
-
-                        if (spawnDimension == World.OVERWORLD) {
-                            BlockState checkState = targetWorld.getBlockState(spawnBlockPos);
-                            if (!(checkState.getBlock() instanceof BedBlock)) {
-                                targetWorld = server.getOverworld();
-                                spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-                                spawnType = "world spawn (bed missing)";
-                            }
-                        } else if (spawnDimension == World.NETHER) {
-                            BlockState checkState = targetWorld.getBlockState(spawnBlockPos);
-                            if (!(checkState.getBlock() instanceof RespawnAnchorBlock) ||
-                                    checkState.get(RespawnAnchorBlock.CHARGES) <= 0) {
-                                targetWorld = server.getOverworld();
-                                spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-                                spawnType = "world spawn (anchor missing/uncharged)";
-                            }
-                        }
-                    } else {
-                        targetWorld = server.getOverworld();
-                        spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-                        spawnType = "world spawn (spawn obstructed)";
+                // Bed/respawn anchor, then world spawn, checked once the spawn chunk is loaded
+                CompletableFuture<ReturnPipeline.Destination> respawn = ReturnPipeline.respawn(player);
+                TeleportQueue.trackInFlight(player, data, respawn);
+
+                respawn.whenComplete((destination, throwable) -> {
+                    if (throwable != null) {
+                        logFailure(player, throwable);
+                    } else if (destination != null && showMessage) {
+                        Vec3d spawnLocation = destination.position();
+                        player.sendMessage(
+                                Text.literal("Teleported to " + destination.description() +
+                                        " at " + String.format("%.1f, %.1f, %.1f", spawnLocation.x, spawnLocation.y, spawnLocation.z) +
+                                        " in " + destination.world().getRegistryKey().getValue()),
+                                false
+                        );
                     }
-                } else {
-                    spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-                }
-
-                // Teleport player
-                boolean success = TeleportHelper.teleportPlayer(
-                        player,
-                        targetWorld,
-                        spawnLocation,
-                        player.getSpawnAngle(),
-                        0.0f
-                );
-
-                if (success && showMessage) {
-                    player.sendMessage(
-                            Text.literal("Teleported to " + spawnType +
-                                    " at " + String.format("%.1f, %.1f, %.1f", spawnLocation.x, spawnLocation.y, spawnLocation.z) +
-                                    " in " + targetWorld.getRegistryKey().getValue()),
-                            false
-                    );
-                }
+                });
             } else {
                 // World spawn only for player
-                targetWorld = server.getOverworld();
-                spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-
-                boolean success = TeleportHelper.teleportPlayer(
-                        player,
-                        targetWorld,
-                        spawnLocation,
-                        player.getYaw(),
-                        player.getPitch()
-                );
-
-                if (success && showMessage) {
-                    player.sendMessage(
-                            Text.literal("Teleported to world spawn"),
-                            false
-                    );
-                }
+                ReturnPipeline.Destination spawn = ReturnPipeline.worldSpawn(
+                        server, player.getYaw(), player.getPitch(), "world spawn");
+                CompletableFuture<Boolean> teleport = ReturnPipeline.teleport(player, spawn);
+                TeleportQueue.trackInFlight(player, data, teleport);
+
+                teleport.whenComplete((success, throwable) -> {
+                    if (throwable != null) {
+                        logFailure(player, throwable);
+                    } else if (success && showMessage) {
+                        player.sendMessage(
+                                Text.literal("Teleported to world spawn"),
+                                false
+                        );
+                    }
+                });
             }
         } else {
+            // Simple teleport for non-player entities
+            ReturnPipeline.Destination spawn = ReturnPipeline.worldSpawn(
+                    server, entity.getYaw(), entity.getPitch(), "world spawn");
+            CompletableFuture<Boolean> teleport = ReturnPipeline.teleport(entity, spawn);
+            TeleportQueue.trackInFlight(entity, data, teleport);
+
+            teleport.whenComplete((success, throwable) -> {
+                if (throwable != null) {
+                    logFailure(entity, throwable);
+                } else if (success && showMessage) {
+                    // Can't send message to non-player entities
+                    FrostedLib.LOGGER.info("Teleported non-player entity to world spawn");
+                }
+            });
+        }
+    }
 
-            targetWorld = server.getOverworld();
-            spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
+    private static void logFailure(Entity entity, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
 
-            // Simple teleport for non-player entities
-            entity.teleport(
-                    targetWorld,
-                    spawnLocation.x,
-                    spawnLocation.y,
-                    spawnLocation.z,
-                    java.util.Set.of(),
-                    entity.getYaw(),
-                    entity.getPitch()
-            );
+        // Replaced by a newer request for the same entity
+        if (cause instanceof CancellationException) return;
 
-            // Can't send message to non-player entities
-            if (showMessage) {
-                FrostedLib.LOGGER.info("Teleported non-player entity to world spawn");
-            }
-        }
+        FrostedLib.LOGGER.error("Fake respawn for {} failed: {}",
+                entity.getName().getString(), cause.getMessage());
     }
 
     public static ActionFactory<Entity> getFactory() {
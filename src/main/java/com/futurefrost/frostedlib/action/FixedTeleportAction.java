@@ -1,5 +1,7 @@
 package com.futurefrost.frostedlib.action;
 
+import com.futurefrost.frostedlib.util.SearchBudget;
+import com.futurefrost.frostedlib.util.TeleportOutcome;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
@@ -13,6 +15,9 @@ public class FixedTeleportAction extends BaseTeleportAction {
 
     private static final SerializableData DATA;
 
+    // Actions hold no per-execution state, so every power shares one instance
+    private static final FixedTeleportAction INSTANCE = new FixedTeleportAction();
+
     static {
         DATA = new SerializableData()
                 // Core Targeting
@@ -32,6 +37,13 @@ public class FixedTeleportAction extends BaseTeleportAction {
                 .add("liquids_safe", SerializableDataTypes.BOOLEAN, false)
                 .add("liquid_condition", ApoliDataTypes.BLOCK_CONDITION, null)
                 .add("error_message", SerializableDataTypes.STRING, null)
+                .add("max_search_millis", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("max_chunk_loads", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("warmup_ticks", SerializableDataTypes.INT, 0)  // Load the destination this long before moving
+                .add("group_radius", SerializableDataTypes.DOUBLE, 0.0)  // 0 = only the entity itself
+                .add("group_condition", ApoliDataTypes.BIENTITY_CONDITION, null)  // Actor is the entity, target the member
+                .add("group_entity_condition", ApoliDataTypes.ENTITY_CONDITION, null)
+                .add("group_spread", SerializableDataTypes.INT, 4)  // How far members may land from the entity
                 // Fixed teleport specific fields
                 .add("target_x", SerializableDataTypes.DOUBLE)
                 .add("target_y", SerializableDataTypes.DOUBLE, 64.0)  // Default to sea level if not specified
@@ -39,7 +51,12 @@ public class FixedTeleportAction extends BaseTeleportAction {
     }
 
     @Override
-    protected Vec3d calculateTargetPosition(SerializableData.Instance data, Entity entity, ServerWorld targetWorld) {
+    protected TeleportOutcome calculateTargetPosition(SerializableData.Instance data, Entity entity,
+                                                      ServerWorld targetWorld, SearchBudget budget) {
+        return TeleportOutcome.success(getTargetPosition(data));
+    }
+
+    private Vec3d getTargetPosition(SerializableData.Instance data) {
         double targetX = data.getDouble("target_x");
         double targetY = data.getDouble("target_y");  // Get target_y (has default value)
         double targetZ = data.getDouble("target_z");
@@ -52,7 +69,7 @@ public class FixedTeleportAction extends BaseTeleportAction {
     @Override
     protected Vec3d calculateSearchStartPosition(SerializableData.Instance data, Entity entity, ServerWorld targetWorld) {
         // For fixed teleport, the search start is the exact target position
-        return calculateTargetPosition(data, entity, targetWorld);
+        return getTargetPosition(data);
     }
 
     @Override
@@ -64,7 +81,7 @@ public class FixedTeleportAction extends BaseTeleportAction {
         return new ActionFactory<>(
                 Identifier.of("frostedlib", "fixed_teleport"),
                 DATA,
-                (data, entity) -> new FixedTeleportAction().execute(data, entity)
+                INSTANCE::execute
         );
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.futurefrost.frostedlib.action;
 
+import com.futurefrost.frostedlib.util.SearchBudget;
+import com.futurefrost.frostedlib.util.TeleportOutcome;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
@@ -13,6 +15,9 @@ public class RelativeTeleportAction extends BaseTeleportAction {
 
     private static final SerializableData DATA;
 
+    // Actions hold no per-execution state, so every power shares one instance
+    private static final RelativeTeleportAction INSTANCE = new RelativeTeleportAction();
+
     static {
         // Start with common data with "exposed" default
         DATA = createCommonDataWithExposedDefault()
@@ -22,24 +27,25 @@ public class RelativeTeleportAction extends BaseTeleportAction {
     }
 
     @Override
-    protected Vec3d calculateTargetPosition(SerializableData.Instance data, Entity entity, ServerWorld targetWorld) {
+    protected TeleportOutcome calculateTargetPosition(SerializableData.Instance data, Entity entity,
+                                                      ServerWorld targetWorld, SearchBudget budget) {
         double scale = data.getDouble("scale_factor");
         Double targetY = data.get("target_y");
 
         if (targetY != null) {
             // If target_y is specified, use it
-            return new Vec3d(
+            return TeleportOutcome.success(new Vec3d(
                     entity.getX() * scale,
                     targetY,
                     entity.getZ() * scale
-            );
+            ));
         } else {
             // If no target_y, use entity's Y
-            return new Vec3d(
+            return TeleportOutcome.success(new Vec3d(
                     entity.getX() * scale,
                     entity.getY(),
                     entity.getZ() * scale
-            );
+            ));
         }
     }
 
@@ -57,7 +63,7 @@ public class RelativeTeleportAction extends BaseTeleportAction {
         return new ActionFactory<>(
                 Identifier.of("frostedlib", "relative_teleport"),
                 DATA,
-                (data, entity) -> new RelativeTeleportAction().execute(data, entity)
+                INSTANCE::execute
         );
     }
 }
\ No newline at end of file
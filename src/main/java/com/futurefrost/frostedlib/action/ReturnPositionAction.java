@@ -1,36 +1,37 @@
 package com.futurefrost.frostedlib.action;
 
 import com.futurefrost.frostedlib.FrostedLib;
-import com.futurefrost.frostedlib.data.EntityDataComponent;
 import com.futurefrost.frostedlib.data.PlayerDataComponent;
 import com.futurefrost.frostedlib.data.PositionData;
 import com.futurefrost.frostedlib.registry.ModComponents;
-import com.futurefrost.frostedlib.util.TeleportHelper;
+import com.futurefrost.frostedlib.util.ReturnPipeline;
+import com.futurefrost.frostedlib.util.TeleportQueue;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
 import io.github.apace100.calio.data.SerializableDataTypes;
-import net.minecraft.block.BedBlock;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.RespawnAnchorBlock;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3d;
-import net.minecraft.world.World;
 
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class ReturnPositionAction {
 
     public static void action(SerializableData.Instance data, Entity entity) {
+        if (entity.getWorld().isClient) return;
+
+        // Cheapest kind of teleport, admitted ahead of any search
+        TeleportQueue.submit(entity, TeleportQueue.Priority.RETURN, data, () -> run(data, entity));
+    }
+
+    private static void run(SerializableData.Instance data, Entity entity) {
         String positionId = data.getString("position_id");
         boolean showMessage = data.getBoolean("show_message");
 
@@ -41,8 +42,8 @@ public class ReturnPositionAction {
             PlayerDataComponent playerData = ModComponents.PLAYER_DATA.get(player);
             optionalPos = playerData.getPosition(positionId);
         } else {
-            EntityDataComponent entityData = ModComponents.ENTITY_DATA.get(entity);
-            optionalPos = entityData.getPosition(positionId);
+            optionalPos = ModComponents.ENTITY_DATA.maybeGet(entity)
+                    .flatMap(entityData -> entityData.getPosition(positionId));
         }
 
         if (optionalPos.isPresent()) {
@@ -59,43 +60,34 @@ public class ReturnPositionAction {
                 return;
             }
 
-            boolean success;
+            CompletableFuture<Boolean> teleport = ReturnPipeline.teleport(
+                    entity,
+                    targetWorld,
+                    pos.toVec3d(),
+                    pos.yaw(),
+                    pos.pitch()
+            );
+            TeleportQueue.trackInFlight(entity, data, teleport);
 
-            if (entity instanceof ServerPlayerEntity player) {
-                success = TeleportHelper.teleportPlayer(
-                        player,
-                        targetWorld,
-                        pos.toVec3d(),
-                        pos.yaw(),
-                        pos.pitch()
-                );
+            teleport.whenComplete((success, throwable) -> {
+                if (throwable != null) {
+                    logFailure(entity, throwable);
+                    return;
+                }
+                if (!success || !showMessage) return;
 
-                if (success && showMessage) {
+                if (entity instanceof ServerPlayerEntity player) {
                     player.sendMessage(
                             Text.literal("Returned to position '" + positionId + "' at " +
                                     String.format("%.1f, %.1f, %.1f", pos.x(), pos.y(), pos.z()) +
                                     " in " + pos.dimension().getValue()),
                             false
                     );
-                }
-            } else {
-                // Teleport non-player entity
-                entity.teleport(
-                        targetWorld,
-                        pos.x(),
-                        pos.y(),
-                        pos.z(),
-                        Set.of(),
-                        pos.yaw(),
-                        pos.pitch()
-                );
-                success = true;
-
-                if (showMessage) {
+                } else {
                     FrostedLib.LOGGER.info("Entity {} teleported to position '{}'",
                             entity.getName().getString(), positionId);
                 }
-            }
+            });
         } else {
             // Execute failsafe
             executeFailsafe(data, entity);
@@ -116,9 +108,9 @@ public class ReturnPositionAction {
         } else {
             // Default failsafe based on entity type
             if (entity instanceof ServerPlayerEntity player) {
-                executeDefaultPlayerFailsafe(player, showMessage);
+                executeDefaultPlayerFailsafe(data, player, showMessage);
             } else {
-                executeDefaultEntityFailsafe(entity, showMessage);
+                executeDefaultEntityFailsafe(data, entity, showMessage);
             }
         }
 
@@ -134,103 +126,54 @@ public class ReturnPositionAction {
         }
     }
 
-    private static void executeDefaultPlayerFailsafe(ServerPlayerEntity player, boolean showMessage) {
-        MinecraftServer server = player.getServer();
-        if (server == null) return;
-
-        // Player failsafe: check for bed/respawn anchor, then world spawn
-        RegistryKey<World> spawnDimension = player.getSpawnPointDimension();
-        BlockPos spawnBlockPos = player.getSpawnPointPosition();
-
-        ServerWorld targetWorld = null;
-        Vec3d spawnLocation;
-        String spawnType = "world spawn";
-
-        boolean hasValidSpawnPoint = false;
-
-        if (spawnBlockPos != null && spawnDimension != null) {
-            targetWorld = server.getWorld(spawnDimension);
-
-            if (targetWorld != null) {
-                if (spawnDimension == World.OVERWORLD) {
-                    BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                    boolean isBed = blockState.getBlock() instanceof BedBlock;
-                    boolean isWorldSpawn = spawnBlockPos.equals(targetWorld.getSpawnPos());
-                    hasValidSpawnPoint = isBed && !isWorldSpawn;
-                    spawnType = "bed spawn";
-                } else if (spawnDimension == World.NETHER) {
-                    BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                    boolean isRespawnAnchor = blockState.getBlock() instanceof RespawnAnchorBlock;
-                    boolean isCharged = isRespawnAnchor && blockState.get(RespawnAnchorBlock.CHARGES) > 0;
-                    hasValidSpawnPoint = isRespawnAnchor && isCharged;
-                    spawnType = "respawn anchor";
-                } else {
-                    hasValidSpawnPoint = true;
-                    spawnType = "dimension spawn point";
-                }
-            }
-        }
-
-        if (!hasValidSpawnPoint) {
-            targetWorld = server.getOverworld();
-            spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-            spawnType = "world spawn";
-        } else {
-            Optional<Vec3d> safeSpawn = PlayerEntity.findRespawnPosition(
-                    targetWorld,
-                    spawnBlockPos,
-                    player.getSpawnAngle(),
-                    false,
-                    true
-            );
-
-            if (safeSpawn.isPresent()) {
-                spawnLocation = safeSpawn.get();
-            } else {
-                targetWorld = server.getOverworld();
-                spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-                spawnType = "world spawn (spawn obstructed)";
+    private static void executeDefaultPlayerFailsafe(SerializableData.Instance data, ServerPlayerEntity player,
+                                                     boolean showMessage) {
+        // Player failsafe: bed/respawn anchor, then world spawn, checked once the spawn chunk is loaded
+        CompletableFuture<ReturnPipeline.Destination> respawn = ReturnPipeline.respawn(player);
+        TeleportQueue.trackInFlight(player, data, respawn);
+
+        respawn.whenComplete((destination, throwable) -> {
+            if (throwable != null) {
+                logFailure(player, throwable);
+            } else if (destination != null && showMessage) {
+                player.sendMessage(
+                        Text.literal("Teleported to " + destination.description()),
+                        false
+                );
             }
-        }
-
-        boolean success = TeleportHelper.teleportPlayer(
-                player,
-                targetWorld,
-                spawnLocation,
-                player.getSpawnAngle(),
-                0.0f
-        );
-
-        if (success && showMessage) {
-            player.sendMessage(
-                    Text.literal("Teleported to " + spawnType),
-                    false
-            );
-        }
+        });
     }
 
-    private static void executeDefaultEntityFailsafe(Entity entity, boolean showMessage) {
+    private static void executeDefaultEntityFailsafe(SerializableData.Instance data, Entity entity,
+                                                     boolean showMessage) {
         MinecraftServer server = entity.getServer();
         if (server == null) return;
 
         // Entity failsafe: simple world spawn teleport
-        ServerWorld overworld = server.getOverworld();
-        Vec3d spawnPos = Vec3d.ofBottomCenter(overworld.getSpawnPos());
-
-        entity.teleport(
-                overworld,
-                spawnPos.x,
-                spawnPos.y,
-                spawnPos.z,
-                Set.of(),
-                entity.getYaw(),
-                entity.getPitch()
-        );
+        ReturnPipeline.Destination spawn = ReturnPipeline.worldSpawn(
+                server, entity.getYaw(), entity.getPitch(), "world spawn");
+        CompletableFuture<Boolean> teleport = ReturnPipeline.teleport(entity, spawn);
+        TeleportQueue.trackInFlight(entity, data, teleport);
+
+        teleport.whenComplete((success, throwable) -> {
+            if (throwable != null) {
+                logFailure(entity, throwable);
+            } else if (success && showMessage) {
+                FrostedLib.LOGGER.info("Entity {} teleported to world spawn",
+                        entity.getName().getString());
+            }
+        });
+    }
 
-        if (showMessage) {
-            FrostedLib.LOGGER.info("Entity {} teleported to world spawn",
-                    entity.getName().getString());
-        }
+    private static void logFailure(Entity entity, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                throwable.getCause() : throwable;
+
+        // Replaced by a newer request for the same entity
+        if (cause instanceof CancellationException) return;
+
+        FrostedLib.LOGGER.error("Return teleport for {} failed: {}",
+                entity.getName().getString(), cause.getMessage());
     }
 
     public static ActionFactory<Entity> getFactory() {
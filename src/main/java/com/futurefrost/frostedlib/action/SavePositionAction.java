@@ -13,6 +13,8 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 
+import java.util.Optional;
+
 public class SavePositionAction {
 
     public static void action(SerializableData.Instance data, Entity entity) {
@@ -26,7 +28,7 @@ public class SavePositionAction {
         if (entity instanceof ServerPlayerEntity player) {
             // Save to player data
             PlayerDataComponent playerData = ModComponents.PLAYER_DATA.get(player);
-            playerData.savePosition(positionId, pos);
+            playerData.savePosition(positionId, pos, data.getBoolean("server_only"));
 
             if (showMessage) {
                 player.sendMessage(
@@ -37,9 +39,13 @@ public class SavePositionAction {
                 );
             }
         } else {
-            // Save to entity data
-            EntityDataComponent entityData = ModComponents.ENTITY_DATA.get(entity);
-            entityData.savePosition(positionId, pos);
+            // Save to entity data, if this kind of entity can hold positions
+            Optional<EntityDataComponent> entityData = ModComponents.ENTITY_DATA.maybeGet(entity);
+            if (entityData.isEmpty()) {
+                FrostedLib.LOGGER.warn("Entity {} can't hold saved positions", entity.getName().getString());
+                return;
+            }
+            entityData.get().savePosition(positionId, pos);
 
             if (showMessage) {
                 // For non-player entities, log to console
@@ -58,7 +64,8 @@ public class SavePositionAction {
                 Identifier.of("frostedlib", "save_pos"),
                 new SerializableData()
                         .add("position_id", SerializableDataTypes.STRING)
-                        .add("show_message", SerializableDataTypes.BOOLEAN, false),  // Default: false (silent)
+                        .add("show_message", SerializableDataTypes.BOOLEAN, false)  // Default: false (silent)
+                        .add("server_only", SerializableDataTypes.BOOLEAN, false),  // Never sync this position to the client
                 SavePositionAction::action
         );
     }
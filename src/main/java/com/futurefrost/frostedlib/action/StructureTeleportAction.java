@@ -1,5 +1,11 @@
 package com.futurefrost.frostedlib.action;
 
+import com.futurefrost.frostedlib.util.AsyncStructureLocator;
+import com.futurefrost.frostedlib.util.ChunkPrefetcher;
+import com.futurefrost.frostedlib.util.ErrorHandler;
+import com.futurefrost.frostedlib.util.SearchBudget;
+import com.futurefrost.frostedlib.util.TeleportOutcome;
+import com.futurefrost.frostedlib.util.TeleportQueue;
 import io.github.apace100.apoli.data.ApoliDataTypes;
 import io.github.apace100.apoli.power.factory.action.ActionFactory;
 import io.github.apace100.calio.data.SerializableData;
@@ -7,23 +13,30 @@ import io.github.apace100.calio.data.SerializableDataTypes;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.registry.*;
-import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.registry.entry.RegistryEntryList;
 import net.minecraft.registry.tag.TagKey;
-import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.structure.StructureStart;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.*;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.gen.structure.Structure;
-import com.mojang.datafixers.util.Pair;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 public class StructureTeleportAction extends BaseTeleportAction {
 
     private static final SerializableData DATA;
 
+    // How far from the structure's center a safe spot is searched for, in blocks
+    private static final int SAFE_SEARCH_RADIUS = 16;
+
+    // Actions hold no per-execution state, so every power shares one instance
+    private static final StructureTeleportAction INSTANCE = new StructureTeleportAction();
+
     static {
         DATA = new SerializableData()
                 .add("target_dimension", SerializableDataTypes.IDENTIFIER, null)
@@ -41,114 +54,235 @@ public class StructureTeleportAction extends BaseTeleportAction {
                 .add("liquids_safe", SerializableDataTypes.BOOLEAN, false)
                 .add("liquid_condition", ApoliDataTypes.BLOCK_CONDITION, null)
                 .add("error_message", SerializableDataTypes.STRING, null)
+                .add("max_search_millis", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("max_chunk_loads", SerializableDataTypes.INT, 0)  // 0 = no limit
+                .add("warmup_ticks", SerializableDataTypes.INT, 0)  // Load the destination this long before moving
+                .add("group_radius", SerializableDataTypes.DOUBLE, 0.0)  // 0 = only the entity itself
+                .add("group_condition", ApoliDataTypes.BIENTITY_CONDITION, null)  // Actor is the entity, target the member
+                .add("group_entity_condition", ApoliDataTypes.ENTITY_CONDITION, null)
+                .add("group_spread", SerializableDataTypes.INT, 4)  // How far members may land from the entity
                 // Structure specific fields
                 .add("structure_id", SerializableDataTypes.IDENTIFIER)
                 .add("chunk_search_radius", SerializableDataTypes.INT, 100)
-                .add("scale_factor", SerializableDataTypes.DOUBLE, 1.0);
+                .add("scale_factor", SerializableDataTypes.DOUBLE, 1.0)
+                .add("skip_referenced", SerializableDataTypes.BOOLEAN, false);  // Skip structures that were already discovered
     }
 
     @Override
-    protected Vec3d calculateTargetPosition(SerializableData.Instance data, Entity entity, ServerWorld world) {
-        Identifier structureId = data.getId("structure_id");
-        if (structureId == null) {
-            throw new IllegalArgumentException("Parameter 'structure_id' must be specified for structure teleport");
+    protected TeleportQueue.Priority getQueuePriority() {
+        return TeleportQueue.Priority.SEARCH;
+    }
+
+    @Override
+    protected boolean needsPositionSearch() {
+        return false; // A safe spot is picked inside the structure below
+    }
+
+    @Override
+    protected CompletableFuture<TeleportOutcome> resolveTargetPosition(SerializableData.Instance data, Entity entity,
+                                                                       ServerWorld world, SearchBudget budget) {
+        StructureSearch search = createSearch(data, entity, world, budget);
+        TeleportOutcome invalid = validateSearch(world, search);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
         }
 
-        int searchRadius = data.getInt("chunk_search_radius");
+        // Locate off-thread, then verify candidates and pick a safe spot back on the server thread
+        AsyncStructureLocator.LocateTask task = AsyncStructureLocator.locate(world, entity,
+                search.structures(), search.start(), search.radius(), search.skipReferenced(), budget);
+
+        CompletableFuture<TeleportOutcome> outcome = new CompletableFuture<>();
+        task.future().whenCompleteAsync((candidates, error) -> {
+            if (error != null) {
+                outcome.completeExceptionally(error);
+            } else if (task.isCancelled()) {
+                outcome.cancel(false);
+            } else {
+                verifyCandidates(world, search, candidates, 0, outcome);
+            }
+        }, world.getServer());
+
+        // A newer request replacing this one cancels the outcome; let go of the shared locate too
+        outcome.whenComplete((result, error) -> {
+            if (outcome.isCancelled()) {
+                task.cancel();
+            }
+        });
+
+        return outcome;
+    }
+
+    private record StructureSearch(Identifier structureId, RegistryEntryList<Structure> structures,
+                                   BlockPos start, int radius, boolean skipReferenced, SearchBudget budget) {
+    }
+
+    private StructureSearch createSearch(SerializableData.Instance data, Entity entity, ServerWorld world,
+                                         SearchBudget budget) {
+        Identifier structureId = data.getId("structure_id");
+        int searchRadius = budget.getEffort().scale(data.getInt("chunk_search_radius"));
         double scaleFactor = data.getDouble("scale_factor");
 
         // Calculate search start position using scale factor.
         BlockPos searchStartPos = calculateScaledSearchPosition(entity, world, scaleFactor);
 
-        // Get the structure position closest to scaled position
-        Optional<Pair<BlockPos, Structure>> structureResult = getStructurePos(world, structureId, searchStartPos, searchRadius);
+        RegistryEntryList<Structure> structures = structureId != null ? getStructureEntries(world, structureId) : null;
 
-        if (structureResult.isEmpty()) {
-            throw new RuntimeException("Could not find structure: " + structureId +
-                    " within " + searchRadius + " chunks of position " + searchStartPos.toShortString() +
-                    " in dimension " + world.getRegistryKey().getValue());
+        return new StructureSearch(structureId, structures, searchStartPos, searchRadius,
+                data.getBoolean("skip_referenced"), budget);
+    }
+
+    // Returns the failure if the search can't run, or null if it can
+    private TeleportOutcome validateSearch(ServerWorld world, StructureSearch search) {
+        if (search.structureId() == null) {
+            return TeleportOutcome.failure(ErrorHandler.ErrorType.VALIDATION_ERROR,
+                    "Parameter 'structure_id' must be specified for structure teleport");
         }
 
-        Pair<BlockPos, Structure> structurePair = structureResult.get();
-        BlockPos structurePos = structurePair.getFirst();
-        Structure structure = structurePair.getSecond();
+        if (search.structures() == null) {
+            return TeleportOutcome.failure(ErrorHandler.ErrorType.STRUCTURE_NOT_FOUND,
+                    "Could not find structure: " + search.structureId() +
+                    " (no structure or structure tag with this id) in dimension " + world.getRegistryKey().getValue());
+        }
 
-        // Get the actual structure start
-        ChunkPos structureChunkPos = new ChunkPos(structurePos.getX() >> 4, structurePos.getZ() >> 4);
-        StructureStart structureStart = world.getStructureAccessor().getStructureStart(
-                ChunkSectionPos.from(structureChunkPos, 0),
-                structure,
-                world.getChunk(structurePos)
-        );
+        return null;
+    }
 
-        if (structureStart == null || !structureStart.hasChildren()) {
-            throw new RuntimeException("Structure found but not generated at position: " + structurePos.toShortString());
+    // The worker only knows placement and noise, so confirm each candidate actually generated,
+    // nearest first. A start chunk that isn't loaded gets a ticket and the check carries on once
+    // it is in, so the server thread never waits for chunk generation.
+    private void verifyCandidates(ServerWorld world, StructureSearch search,
+                                  List<AsyncStructureLocator.Candidate> candidates, int index,
+                                  CompletableFuture<TeleportOutcome> outcome) {
+        if (outcome.isDone()) return;
+        SearchBudget budget = search.budget();
+
+        for (int i = index; i < candidates.size(); i++) {
+            AsyncStructureLocator.Candidate candidate = candidates.get(i);
+            ChunkPos startChunk = candidate.startChunk();
+            if (!budget.tryColumn(world, startChunk.getStartX(), startChunk.getStartZ())) break;
+
+            // Structure starts are known from STRUCTURE_STARTS on, so partly generated chunks answer too
+            Chunk chunk = world.getChunkManager().getChunk(startChunk.x, startChunk.z,
+                    ChunkStatus.STRUCTURE_STARTS, false);
+            if (chunk == null) {
+                int next = i;
+                whenLoaded(world, startChunk.getStartPos(), 0, outcome,
+                        () -> verifyCandidates(world, search, candidates, next, outcome));
+                return;
+            }
+
+            StructureStart structureStart = getGeneratedStart(world, candidate, chunk, search.skipReferenced());
+            if (structureStart != null) {
+                findSafePosition(world, structureStart, budget, outcome);
+                return;
+            }
         }
 
+        if (budget.isExhausted()) {
+            outcome.complete(TeleportOutcome.budgetExceeded(budget));
+            return;
+        }
+
+        outcome.complete(TeleportOutcome.failure(ErrorHandler.ErrorType.STRUCTURE_NOT_FOUND,
+                "Could not find structure: " + search.structureId() +
+                " within " + search.radius() + " chunks of position " + search.start().toShortString() +
+                " in dimension " + world.getRegistryKey().getValue()));
+    }
+
+    private void findSafePosition(ServerWorld world, StructureStart structureStart, SearchBudget budget,
+                                  CompletableFuture<TeleportOutcome> outcome) {
         // Get the center of the structure's bounding box
         BlockPos structureCenter = new BlockPos(structureStart.getBoundingBox().getCenter());
+        Vec3d fallback = new Vec3d(structureCenter.getX() + 0.5, structureCenter.getY(), structureCenter.getZ() + 0.5);
+
+        // The spot search stays within one chunk of the center's chunk, load those first
+        int reach = SAFE_SEARCH_RADIUS - 1;
+        if (!budget.tryArea(world, structureCenter.getX() - reach, structureCenter.getZ() - reach,
+                structureCenter.getX() + reach, structureCenter.getZ() + reach)) {
+            outcome.complete(TeleportOutcome.success(fallback));
+            return;
+        }
+
+        whenLoaded(world, structureCenter, 1, outcome, () -> {
+            // Find a safe position within the structure bounds, or fall back to the structure center
+            BlockPos safePos = findSafePositionInStructure(world, structureStart, structureCenter, budget);
+            outcome.complete(TeleportOutcome.success(safePos != null ?
+                    new Vec3d(safePos.getX() + 0.5, safePos.getY(), safePos.getZ() + 0.5) : fallback));
+        });
+    }
 
-        // Find a safe position within the structure bounds
-        BlockPos safePos = findSafePositionInStructure(world, structureStart, structureCenter);
+    // Runs next on the server thread once the chunks around pos are loaded, then lets them go.
+    // If the outcome completes first (a newer request replaced this one) the ticket is freed instead.
+    private static void whenLoaded(ServerWorld world, BlockPos pos, int radius,
+                                   CompletableFuture<TeleportOutcome> outcome, Runnable next) {
+        CompletableFuture<ChunkPrefetcher.Prefetch> load = ChunkPrefetcher.load(world, pos, radius);
+        outcome.whenComplete((result, error) -> load.cancel(false));
+
+        load.whenComplete((prefetch, error) -> {
+            if (error != null) {
+                if (!(error instanceof CancellationException)) {
+                    outcome.completeExceptionally(error);
+                }
+                return;
+            }
+
+            try {
+                next.run();
+            } catch (RuntimeException e) {
+                outcome.completeExceptionally(e);
+            } finally {
+                prefetch.release();
+            }
+        });
+    }
+
+    private StructureStart getGeneratedStart(ServerWorld world, AsyncStructureLocator.Candidate candidate,
+                                             Chunk chunk, boolean skipReferenced) {
+        StructureStart structureStart = world.getStructureAccessor().getStructureStart(
+                ChunkSectionPos.from(candidate.startChunk(), 0),
+                candidate.structure().value(),
+                chunk
+        );
 
-        if (safePos != null) {
-            return new Vec3d(safePos.getX() + 0.5, safePos.getY(), safePos.getZ() + 0.5);
+        if (structureStart == null || !structureStart.hasChildren()) {
+            return null;
         }
 
-        // Fallback to structure center
-        return new Vec3d(structureCenter.getX() + 0.5, structureCenter.getY(), structureCenter.getZ() + 0.5);
+        if (skipReferenced) {
+            // Remember the start either way so later searches skip it without reading the chunk again
+            AsyncStructureLocator.markDiscovered(world, candidate.structure(), candidate.startChunk());
+
+            if (!structureStart.isNeverReferenced()) {
+                return null;
+            }
+            world.getStructureAccessor().incrementReferences(structureStart);
+        }
+
+        return structureStart;
     }
 
-    private Optional<Pair<BlockPos, Structure>> getStructurePos(ServerWorld world, Identifier structureId,
-                                                                BlockPos searchCenter, int radius) {
+    private RegistryEntryList<Structure> getStructureEntries(ServerWorld world, Identifier structureId) {
         Registry<Structure> structureRegistry = world.getRegistryManager().get(RegistryKeys.STRUCTURE);
-        RegistryEntryList<Structure> structureRegistryEntryList = null;
 
         // First try to get the structure by key
         RegistryKey<Structure> structureKey = RegistryKey.of(RegistryKeys.STRUCTURE, structureId);
         var entry = structureRegistry.getEntry(structureKey);
         if (entry.isPresent()) {
-            structureRegistryEntryList = RegistryEntryList.of(entry.get());
+            return RegistryEntryList.of(entry.get());
         }
 
         // If not found by key, try by tag
-        if (structureRegistryEntryList == null) {
-            TagKey<Structure> structureTag = TagKey.of(RegistryKeys.STRUCTURE, structureId);
-            var entryList = structureRegistry.getEntryList(structureTag);
-            if (entryList.isPresent()) {
-                structureRegistryEntryList = entryList.get();
-            }
-        }
-
-        if (structureRegistryEntryList == null) {
-            return Optional.empty();
-        }
-
-        // Use the chunk generator to locate the structure
-        com.mojang.datafixers.util.Pair<BlockPos, RegistryEntry<Structure>> structurePos = world
-                .getChunkManager()
-                .getChunkGenerator()
-                .locateStructure(
-                        world,
-                        structureRegistryEntryList,
-                        searchCenter,  // KEY FIX: Use scaled position
-                        radius,
-                        false
-                );
-
-        if (structurePos == null) {
-            return Optional.empty();
-        }
-
-        return Optional.of(new Pair<>(structurePos.getFirst(), structurePos.getSecond().value()));
+        TagKey<Structure> structureTag = TagKey.of(RegistryKeys.STRUCTURE, structureId);
+        return structureRegistry.getEntryList(structureTag).orElse(null);
     }
 
-    private BlockPos findSafePositionInStructure(ServerWorld world, StructureStart structureStart, BlockPos center) {
+    private BlockPos findSafePositionInStructure(ServerWorld world, StructureStart structureStart, BlockPos center,
+                                                 SearchBudget budget) {
         // Search within the structure's bounding box
         BlockBox bounds = structureStart.getBoundingBox();
 
         // Start from the center and search outward
-        for (int radius = 0; radius < 16; radius++) {
+        for (int radius = 0; radius < SAFE_SEARCH_RADIUS; radius++) {
             for (int dx = -radius; dx <= radius; dx++) {
                 for (int dz = -radius; dz <= radius; dz++) {
                     if (Math.abs(dx) != radius && Math.abs(dz) != radius) {
@@ -164,6 +298,11 @@ public class StructureTeleportAction extends BaseTeleportAction {
                         continue;
                     }
 
+                    // Out of budget: settle for the fallback at the structure center
+                    if (!budget.tryColumn(world, x, z)) {
+                        return null;
+                    }
+
                     // Try different Y levels within structure bounds
                     for (int y = bounds.getMinY(); y <= bounds.getMaxY(); y++) {
                         BlockPos testPos = new BlockPos(x, y, z);
@@ -212,7 +351,7 @@ public class StructureTeleportAction extends BaseTeleportAction {
         return new ActionFactory<>(
                 Identifier.of("frostedlib", "structure_teleport"),
                 DATA,
-                (data, entity) -> new StructureTeleportAction().execute(data, entity)
+                INSTANCE::execute
         );
     }
 }
\ No newline at end of file
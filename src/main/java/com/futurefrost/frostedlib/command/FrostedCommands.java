@@ -1,40 +1,54 @@
 package com.futurefrost.frostedlib.command;
 
+import com.futurefrost.frostedlib.FrostedLib;
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.futurefrost.frostedlib.data.EntityDataComponent;
 import com.futurefrost.frostedlib.data.PlayerDataComponent;
 import com.futurefrost.frostedlib.data.PositionData;
+import com.futurefrost.frostedlib.data.PositionStorage;
+import com.futurefrost.frostedlib.data.PositionStore;
 import com.futurefrost.frostedlib.registry.ModComponents;
-import com.futurefrost.frostedlib.util.TeleportHelper;
+import com.futurefrost.frostedlib.util.OfflinePlayerPositions;
+import com.futurefrost.frostedlib.util.ReturnPipeline;
+import com.futurefrost.frostedlib.util.ServerLoadMonitor;
+import com.futurefrost.frostedlib.util.TeleportQueue;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
-import net.minecraft.block.BedBlock;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.RespawnAnchorBlock;
 import net.minecraft.command.CommandSource;
 import net.minecraft.command.EntitySelector;
 import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.command.argument.GameProfileArgumentType;
+import net.minecraft.command.argument.IdentifierArgumentType;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3d;
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.UserCache;
 import net.minecraft.world.World;
+import net.minecraft.nbt.NbtCompound;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
 
 public class FrostedCommands {
 
+    // Longest result list a find command prints in chat
+    private static final int MAX_LISTED_RESULTS = 20;
+
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
         dispatcher.register(CommandManager.literal("frostedlib")
                 .requires(source -> source.hasPermissionLevel(2))
@@ -80,6 +94,58 @@ public class FrostedCommands {
                         )
                         .executes(context -> debugDataForExecutor(context))
                 )
+
+                // Find commands: /frostedlib find (id <id> | dimension <dimension> | owner <player>)
+                .then(CommandManager.literal("find")
+                        .then(CommandManager.literal("id")
+                                .then(CommandManager.argument("id", StringArgumentType.word())
+                                        .executes(FrostedCommands::findById)
+                                )
+                        )
+                        .then(CommandManager.literal("dimension")
+                                .then(CommandManager.argument("dimension", IdentifierArgumentType.identifier())
+                                        .executes(FrostedCommands::findByDimension)
+                                )
+                        )
+                        .then(CommandManager.literal("owner")
+                                .then(CommandManager.argument("owner", GameProfileArgumentType.gameProfile())
+                                        .executes(FrostedCommands::findByOwner)
+                                )
+                        )
+                )
+
+                // Offline commands: /frostedlib offline (find | remove) (id <id> | dimension <dimension>)
+                .then(CommandManager.literal("offline")
+                        .then(CommandManager.literal("find")
+                                .then(CommandManager.literal("id")
+                                        .then(CommandManager.argument("id", StringArgumentType.word())
+                                                .executes(context -> offlineById(context, false))
+                                        )
+                                )
+                                .then(CommandManager.literal("dimension")
+                                        .then(CommandManager.argument("dimension", IdentifierArgumentType.identifier())
+                                                .executes(context -> offlineByDimension(context, false))
+                                        )
+                                )
+                        )
+                        .then(CommandManager.literal("remove")
+                                .then(CommandManager.literal("id")
+                                        .then(CommandManager.argument("id", StringArgumentType.word())
+                                                .executes(context -> offlineById(context, true))
+                                        )
+                                )
+                                .then(CommandManager.literal("dimension")
+                                        .then(CommandManager.argument("dimension", IdentifierArgumentType.identifier())
+                                                .executes(context -> offlineByDimension(context, true))
+                                        )
+                                )
+                        )
+                )
+
+                // Queue command: /frostedlib queue
+                .then(CommandManager.literal("queue")
+                        .executes(FrostedCommands::queueStatus)
+                )
         );
     }
 
@@ -104,9 +170,11 @@ public class FrostedCommands {
                 data.savePosition(id, pos);
                 successCount++;
             } else {
-                EntityDataComponent data = ModComponents.ENTITY_DATA.get(entity);
-                data.savePosition(id, pos);
-                successCount++;
+                Optional<EntityDataComponent> data = ModComponents.ENTITY_DATA.maybeGet(entity);
+                if (data.isPresent()) {
+                    data.get().savePosition(id, pos);
+                    successCount++;
+                }
             }
         }
 
@@ -129,11 +197,14 @@ public class FrostedCommands {
         Collection<? extends Entity> targets = EntityArgumentType.getEntities(context, "target");
         String id = StringArgumentType.getString(context, "id");
 
-        int successCount = 0;
-        int failCount = 0;
+        List<CompletableFuture<Boolean>> teleports = new ArrayList<>();
 
         for (Entity entity : targets) {
-            boolean success = false;
+            MinecraftServer server = entity.getServer();
+            if (server == null) {
+                teleports.add(CompletableFuture.completedFuture(false));
+                continue;
+            }
 
             // Try to get saved position
             Optional<PositionData> optionalPos = Optional.empty();
@@ -142,156 +213,57 @@ public class FrostedCommands {
                 PlayerDataComponent data = ModComponents.PLAYER_DATA.get(player);
                 optionalPos = data.getPosition(id);
             } else {
-                EntityDataComponent data = ModComponents.ENTITY_DATA.get(entity);
-                optionalPos = data.getPosition(id);
+                optionalPos = ModComponents.ENTITY_DATA.maybeGet(entity).flatMap(data -> data.getPosition(id));
             }
 
+            // Destinations load in the background, so returning many entities at once doesn't stall the tick
+            CompletableFuture<Boolean> teleport;
             if (optionalPos.isPresent()) {
                 // Teleport to saved position
                 PositionData pos = optionalPos.get();
-                MinecraftServer server = entity.getServer();
-
-                if (server != null) {
-                    ServerWorld targetWorld = server.getWorld(pos.dimension());
-                    if (targetWorld != null) {
-                        if (entity instanceof ServerPlayerEntity player) {
-                            success = TeleportHelper.teleportPlayer(
-                                    player,
-                                    targetWorld,
-                                    pos.toVec3d(),
-                                    pos.yaw(),
-                                    pos.pitch()
-                            );
-                        } else {
-                            // Teleport non-player entity
-                            entity.teleport(
-                                    targetWorld,
-                                    pos.x(),
-                                    pos.y(),
-                                    pos.z(),
-                                    java.util.Set.of(),
-                                    pos.yaw(),
-                                    pos.pitch()
-                            );
-                            success = true;
-                        }
-                    }
-                }
-            } else {
+                ServerWorld targetWorld = server.getWorld(pos.dimension());
+                teleport = targetWorld != null ?
+                        ReturnPipeline.teleport(entity, targetWorld, pos.toVec3d(), pos.yaw(), pos.pitch()) :
+                        CompletableFuture.completedFuture(false);
+            } else if (entity instanceof ServerPlayerEntity player) {
                 // For players only: execute failsafe (bed/respawn anchor logic)
-                if (entity instanceof ServerPlayerEntity player) {
-                    success = teleportToSpawnFailsafe(player);
-                } else {
-                    // For non-players: teleport to world spawn
-                    success = teleportToWorldSpawn(entity);
-                }
-            }
-
-            if (success) {
-                successCount++;
+                teleport = ReturnPipeline.respawn(player).thenApply(destination -> destination != null);
             } else {
-                failCount++;
+                // For non-players: teleport to world spawn
+                teleport = ReturnPipeline.teleport(entity, ReturnPipeline.worldSpawn(
+                        server, entity.getYaw(), entity.getPitch(), "world spawn"));
             }
-        }
 
-        if (successCount > 0) {
-            int finalSuccessCount = successCount;
-            int finalSuccessCount1 = successCount;
-            int finalFailCount = failCount;
-            source.sendFeedback(() ->
-                            Text.literal("Teleported " + finalSuccessCount + " entity" + (finalSuccessCount1 == 1 ? "" : "s") +
-                                    " to position '" + id + "'" + (finalFailCount > 0 ? " (" + finalFailCount + " failed)" : "")),
-                    true
-            );
-            return successCount;
-        } else {
-            source.sendError(Text.literal("Failed to teleport any entities"));
-            return 0;
+            // A destination that failed to load counts as a failed teleport
+            teleports.add(teleport.exceptionally(throwable -> false));
         }
-    }
 
-    private static boolean teleportToSpawnFailsafe(ServerPlayerEntity player) {
-        MinecraftServer server = player.getServer();
-        if (server == null) return false;
-
-        // Your existing failsafe logic here (bed/respawn anchor check)
-        RegistryKey<World> spawnDimension = player.getSpawnPointDimension();
-        BlockPos spawnBlockPos = player.getSpawnPointPosition();
-
-        boolean hasValidSpawnPoint = false;
-        ServerWorld targetWorld = null;
-        Vec3d spawnLocation = null;
-
-        if (spawnBlockPos != null && spawnDimension != null) {
-            targetWorld = server.getWorld(spawnDimension);
-
-            if (targetWorld != null) {
-                if (spawnDimension == World.OVERWORLD) {
-                    BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                    boolean isBed = blockState.getBlock() instanceof BedBlock;
-                    boolean isWorldSpawn = spawnBlockPos.equals(targetWorld.getSpawnPos());
-                    hasValidSpawnPoint = isBed && !isWorldSpawn;
-                } else if (spawnDimension == World.NETHER) {
-                    BlockState blockState = targetWorld.getBlockState(spawnBlockPos);
-                    boolean isRespawnAnchor = blockState.getBlock() instanceof RespawnAnchorBlock;
-                    boolean isCharged = isRespawnAnchor && blockState.get(RespawnAnchorBlock.CHARGES) > 0;
-                    hasValidSpawnPoint = isRespawnAnchor && isCharged;
+        // Report once every destination has loaded and the teleports are done
+        CompletableFuture.allOf(teleports.toArray(new CompletableFuture[0])).thenRun(() -> {
+            int successCount = 0;
+            int failCount = 0;
+            for (CompletableFuture<Boolean> teleport : teleports) {
+                if (teleport.join()) {
+                    successCount++;
                 } else {
-                    hasValidSpawnPoint = true;
+                    failCount++;
                 }
             }
-        }
-
-        if (!hasValidSpawnPoint || targetWorld == null) {
-            targetWorld = server.getOverworld();
-            spawnBlockPos = targetWorld.getSpawnPos();
-        }
 
-        if (hasValidSpawnPoint && spawnBlockPos != null) {
-            Optional<Vec3d> safeSpawn = PlayerEntity.findRespawnPosition(
-                    targetWorld,
-                    spawnBlockPos,
-                    player.getSpawnAngle(),
-                    false,
-                    true
-            );
-
-            if (safeSpawn.isPresent()) {
-                spawnLocation = safeSpawn.get();
+            if (successCount > 0) {
+                int finalSuccessCount = successCount;
+                int finalFailCount = failCount;
+                source.sendFeedback(() ->
+                                Text.literal("Teleported " + finalSuccessCount + " entity" + (finalSuccessCount == 1 ? "" : "s") +
+                                        " to position '" + id + "'" + (finalFailCount > 0 ? " (" + finalFailCount + " failed)" : "")),
+                        true
+                );
             } else {
-                targetWorld = server.getOverworld();
-                spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
+                source.sendError(Text.literal("Failed to teleport any entities"));
             }
-        } else {
-            spawnLocation = Vec3d.ofBottomCenter(targetWorld.getSpawnPos());
-        }
+        });
 
-        return TeleportHelper.teleportPlayer(
-                player,
-                targetWorld,
-                spawnLocation,
-                player.getSpawnAngle(),
-                0.0f
-        );
-    }
-
-    private static boolean teleportToWorldSpawn(Entity entity) {
-        MinecraftServer server = entity.getServer();
-        if (server == null) return false;
-
-        ServerWorld overworld = server.getOverworld();
-        Vec3d spawnPos = Vec3d.ofBottomCenter(overworld.getSpawnPos());
-
-        entity.teleport(
-                overworld,
-                spawnPos.x,
-                spawnPos.y,
-                spawnPos.z,
-                java.util.Set.of(),
-                entity.getYaw(),
-                entity.getPitch()
-        );
-        return true;
+        return teleports.size();
     }
 
     private static int listPositions(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
@@ -305,8 +277,9 @@ public class FrostedCommands {
             PlayerDataComponent data = ModComponents.PLAYER_DATA.get(player);
             positions = data.getAllPositions();
         } else {
-            EntityDataComponent data = ModComponents.ENTITY_DATA.get(target);
-            positions = data.getAllPositions();
+            positions = ModComponents.ENTITY_DATA.maybeGet(target)
+                    .map(EntityDataComponent::getAllPositions)
+                    .orElse(Map.of());
         }
 
         if (positions.isEmpty()) {
@@ -355,12 +328,12 @@ public class FrostedCommands {
 
         if (target instanceof ServerPlayerEntity player) {
             PlayerDataComponent data = ModComponents.PLAYER_DATA.get(player);
-            count = data.getAllPositions().size();
+            count = data.getPositionCount();
             data.clearAllPositions();
         } else {
-            EntityDataComponent data = ModComponents.ENTITY_DATA.get(target);
-            count = data.getAllPositions().size();
-            data.clearAllPositions();
+            Optional<EntityDataComponent> data = ModComponents.ENTITY_DATA.maybeGet(target);
+            count = data.map(EntityDataComponent::getPositionCount).orElse(0);
+            data.ifPresent(EntityDataComponent::clearAllPositions);
         }
 
         source.sendFeedback(() ->
@@ -395,6 +368,164 @@ public class FrostedCommands {
         return 1;
     }
 
+    private static int findById(CommandContext<ServerCommandSource> context) {
+        String id = StringArgumentType.getString(context, "id");
+        return reportFound(context.getSource(), "with id '" + id + "'", PositionStorage.get().findById(id));
+    }
+
+    private static int findByDimension(CommandContext<ServerCommandSource> context) {
+        // Any identifier, so positions in removed dimensions can be found too
+        Identifier dimension = IdentifierArgumentType.getIdentifier(context, "dimension");
+        return reportFound(context.getSource(), "in " + dimension,
+                PositionStorage.get().findByDimension(RegistryKey.of(RegistryKeys.WORLD, dimension)));
+    }
+
+    private static int findByOwner(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        Collection<GameProfile> owners = GameProfileArgumentType.getProfileArgument(context, "owner");
+        for (GameProfile owner : owners) {
+            reportFound(context.getSource(), "of " + owner.getName(), PositionStorage.get().findByOwner(owner.getId()));
+        }
+        return owners.size();
+    }
+
+    // The store may answer from another thread, results are reported back on the server thread
+    private static int reportFound(ServerCommandSource source, String description,
+                                   CompletableFuture<List<PositionStore.Entry>> query) {
+        MinecraftServer server = source.getServer();
+        boolean coversUnloaded = PositionStorage.get().coversUnloaded();
+
+        query.whenCompleteAsync((entries, throwable) -> {
+            if (throwable != null) {
+                FrostedLib.LOGGER.error("Position query failed", throwable);
+                source.sendError(Text.literal("Position query failed, see the server log"));
+                return;
+            }
+
+            source.sendFeedback(() ->
+                            Text.literal("=== " + entries.size() + " saved position" + (entries.size() == 1 ? "" : "s") +
+                                    " " + description + (coversUnloaded ? "" : " (loaded entities only)") + " ==="),
+                    false
+            );
+            sendEntries(source, entries, entries.size());
+        }, server);
+
+        return 1;
+    }
+
+    // Lists up to MAX_LISTED_RESULTS entries out of total matches
+    private static void sendEntries(ServerCommandSource source, List<PositionStore.Entry> entries, int total) {
+        int listed = Math.min(entries.size(), MAX_LISTED_RESULTS);
+        for (int i = 0; i < listed; i++) {
+            PositionStore.Entry entry = entries.get(i);
+            PositionData pos = entry.position();
+            String owner = ownerName(source.getServer(), entry.owner());
+            source.sendFeedback(() ->
+                            Text.literal(owner + ": '" + entry.id() + "' at " +
+                                    String.format("%.1f, %.1f, %.1f", pos.x(), pos.y(), pos.z()) +
+                                    " in " + pos.dimension().getValue()),
+                    false
+            );
+        }
+        if (total > listed) {
+            int more = total - listed;
+            source.sendFeedback(() -> Text.literal("... and " + more + " more"), false);
+        }
+    }
+
+    private static int offlineById(CommandContext<ServerCommandSource> context, boolean remove) {
+        String id = StringArgumentType.getString(context, "id");
+        return runOffline(context.getSource(), "with id '" + id + "'",
+                (positionId, dimension) -> positionId.equals(id), remove);
+    }
+
+    private static int offlineByDimension(CommandContext<ServerCommandSource> context, boolean remove) {
+        // Any identifier, so positions in removed dimensions can be dropped
+        Identifier dimensionId = IdentifierArgumentType.getIdentifier(context, "dimension");
+        RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, dimensionId);
+        return runOffline(context.getSource(), "in " + dimensionId,
+                (positionId, positionDimension) -> positionDimension.equals(dimension), remove);
+    }
+
+    // Streams through every player file on a worker, reporting progress and results in chat
+    private static int runOffline(ServerCommandSource source, String description,
+                                  BiPredicate<String, RegistryKey<World>> match, boolean remove) {
+        MinecraftServer server = source.getServer();
+        CompletableFuture<OfflinePlayerPositions.Result> run = OfflinePlayerPositions.run(server, match, remove,
+                (scanned, total) -> server.execute(() -> source.sendFeedback(() ->
+                        Text.literal("Scanned " + scanned + " of " + total + " player files..."), false)));
+
+        if (run == null) {
+            source.sendError(Text.literal("An offline position scan is already running"));
+            return 0;
+        }
+
+        source.sendFeedback(() ->
+                        Text.literal((remove ? "Removing" : "Searching for") + " saved positions " + description +
+                                " in every player file..."),
+                remove
+        );
+
+        run.whenCompleteAsync((result, throwable) -> {
+            if (throwable != null) {
+                FrostedLib.LOGGER.error("Offline position scan failed", throwable);
+                source.sendError(Text.literal("Offline position scan failed, see the server log"));
+                return;
+            }
+
+            source.sendFeedback(() ->
+                            Text.literal("=== " + (remove ? "Removed " : "Found ") + result.positions() +
+                                    " saved position" + (result.positions() == 1 ? "" : "s") + " " + description +
+                                    " from " + result.owners() + " player" + (result.owners() == 1 ? "" : "s") +
+                                    " (" + result.scanned() + " files scanned) ==="),
+                    remove
+            );
+            if (!remove) {
+                sendEntries(source, result.examples(), result.positions());
+            }
+            if (result.skipped() > 0) {
+                source.sendError(Text.literal(result.skipped() + " player" + (result.skipped() == 1 ? " was" : "s were") +
+                        " skipped: their journaled changes are only applied when they next log in"));
+            }
+            if (result.online() > 0) {
+                source.sendError(Text.literal(result.online() + " player" + (result.online() == 1 ? "" : "s") +
+                        " logged in during the run and " + (result.online() == 1 ? "was" : "were") +
+                        " left alone, run the command again to include them"));
+            }
+            if (result.failed() > 0) {
+                source.sendError(Text.literal(result.failed() + " player file" + (result.failed() == 1 ? "" : "s") +
+                        " could not be read, see the server log"));
+            }
+        }, server);
+
+        return 1;
+    }
+
+    // Player name if the server knows the UUID, the UUID itself for entities
+    private static String ownerName(MinecraftServer server, UUID owner) {
+        UserCache userCache = server.getUserCache();
+        if (userCache == null) return owner.toString();
+        return userCache.getByUuid(owner).map(GameProfile::getName).orElse(owner.toString());
+    }
+
+    private static int queueStatus(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int depth = TeleportQueue.getDepth();
+        ServerLoadMonitor.Effort effort = ServerLoadMonitor.getEffort(source.getServer());
+
+        source.sendFeedback(() ->
+                        Text.literal("Teleport queue: " + depth + " waiting (" +
+                                TeleportQueue.getDepth(TeleportQueue.Priority.RETURN) + " return, " +
+                                TeleportQueue.getDepth(TeleportQueue.Priority.DIRECT) + " direct, " +
+                                TeleportQueue.getDepth(TeleportQueue.Priority.SEARCH) + " search), " +
+                                TeleportQueue.getInFlightCount() + " searching, search effort " +
+                                Math.round(effort.factor() * 100) + "%" +
+                                (effort.loadedChunksOnly() ? " (loaded chunks only)" : "")),
+                false
+        );
+
+        return depth;
+    }
+
     private static int debugDataForExecutor(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerCommandSource source = context.getSource();
         if (source.getEntity() == null) {
@@ -0,0 +1,77 @@
+package com.futurefrost.frostedlib.data;
+
+import com.futurefrost.frostedlib.registry.ModComponents;
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
+
+/**
+ * The default store: answers straight from the components of online players and loaded
+ * entities, keeping nothing of its own. Unloaded owners are not seen. Queries run on the
+ * server thread.
+ */
+public class ComponentPositionStore implements PositionStore {
+
+    private final MinecraftServer server;
+
+    public ComponentPositionStore(MinecraftServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findByOwner(UUID owner) {
+        return find((entity, id) -> entity.getUuid().equals(owner), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findById(String id) {
+        return find((entity, positionId) -> positionId.equals(id), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findByDimension(RegistryKey<World> dimension) {
+        return find((entity, id) -> true, dimension);
+    }
+
+    @Override
+    public boolean coversUnloaded() {
+        return false;
+    }
+
+    private CompletableFuture<List<Entry>> find(BiPredicate<Entity, String> filter, RegistryKey<World> dimension) {
+        // Components are only safe to walk on the server thread
+        return CompletableFuture.supplyAsync(() -> {
+            List<Entry> results = new ArrayList<>();
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                collect(player, ModComponents.PLAYER_DATA.get(player).getSnapshot(), filter, dimension, results);
+            }
+            for (ServerWorld world : server.getWorlds()) {
+                for (Entity entity : world.iterateEntities()) {
+                    ModComponents.ENTITY_DATA.maybeGet(entity).ifPresent(data ->
+                            collect(entity, data.getSnapshot(), filter, dimension, results));
+                }
+            }
+            return results;
+        }, server);
+    }
+
+    private static void collect(Entity owner, PositionSnapshot positions, BiPredicate<Entity, String> filter,
+                                RegistryKey<World> dimension, List<Entry> results) {
+        if (positions.isEmpty()) return;
+
+        positions.forEach((id, positionDimension, x, y, z, yaw, pitch, serverOnly) -> {
+            if (dimension != null && !dimension.equals(positionDimension)) return;
+            if (!filter.test(owner, id)) return;
+            results.add(new Entry(owner.getUuid(), id, new PositionData(positionDimension, x, y, z, yaw, pitch)));
+        });
+    }
+}
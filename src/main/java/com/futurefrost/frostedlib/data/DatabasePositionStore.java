@@ -0,0 +1,321 @@
+package com.futurefrost.frostedlib.data;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+import org.h2.Driver;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a copy of every saved position in an embedded H2 database in the world folder
+ * ({@code frostedlib_positions.mv.db}), so admin tools can query owners that aren't
+ * loaded. Lookups by owner, id and dimension are indexed.
+ * <p>
+ * Changes are queued on the server thread and written by one worker thread every
+ * {@value #WRITE_INTERVAL_MS} ms, as JDBC batches in a single transaction. Queries run on
+ * that worker after the queued changes, so they always see every change made before them.
+ * A transaction that fails is kept and tried again with the next one. After
+ * {@value #MAX_FAILED_WRITES} failures in a row the changes are dropped and the store no
+ * longer claims to cover unloaded owners, since the copy is now out of date.
+ * <p>
+ * The copy is filled as owners load. Owners saved since they were last loaded into it
+ * aren't loaded again, unless the server crashed. Entities that haven't loaded since the
+ * database was turned on are not in it yet.
+ */
+public class DatabasePositionStore implements PositionStore {
+
+    private static final String FILE_NAME = "frostedlib_positions";
+    private static final int WRITE_INTERVAL_MS = 250;
+    private static final int MAX_FAILED_WRITES = 20;
+
+    private static final String SCHEMA = """
+            CREATE TABLE IF NOT EXISTS positions (
+                owner UUID NOT NULL,
+                id VARCHAR NOT NULL,
+                dimension VARCHAR NOT NULL,
+                x DOUBLE PRECISION NOT NULL,
+                y DOUBLE PRECISION NOT NULL,
+                z DOUBLE PRECISION NOT NULL,
+                yaw REAL NOT NULL,
+                pitch REAL NOT NULL,
+                server_only BOOLEAN NOT NULL,
+                PRIMARY KEY (owner, id)
+            )""";
+    private static final String INDEX_ID = "CREATE INDEX IF NOT EXISTS positions_id ON positions (id)";
+    private static final String INDEX_DIMENSION =
+            "CREATE INDEX IF NOT EXISTS positions_dimension ON positions (dimension)";
+    // One row: the copy's id, and whether the store was closed after its last change
+    private static final String COPY_SCHEMA =
+            "CREATE TABLE IF NOT EXISTS copy (id UUID NOT NULL, closed BOOLEAN NOT NULL)";
+
+    private static final String UPSERT = "MERGE INTO positions KEY (owner, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM positions WHERE owner = ? AND id = ?";
+    private static final String DELETE_OWNER = "DELETE FROM positions WHERE owner = ?";
+    private static final String SELECT = "SELECT owner, id, dimension, x, y, z, yaw, pitch FROM positions WHERE ";
+
+    // One queued change. Consecutive changes of the same kind share a batch.
+    private interface Change {
+    }
+
+    private record Save(UUID owner, String id, PositionData position, boolean serverOnly) implements Change {
+    }
+
+    private record Remove(UUID owner, String id) implements Change {
+    }
+
+    private record Clear(UUID owner) implements Change {
+    }
+
+    private final Connection connection;
+    private final String copyId;
+    private final Queue<Change> queued = new ConcurrentLinkedQueue<>();
+
+    // Taken off the queue but not committed yet, in order. Worker thread only.
+    private final List<Change> unwritten = new ArrayList<>();
+    private int failedWrites;
+    private volatile boolean stale;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FrostedLib Position Database");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler((t, e) -> FrostedLib.LOGGER.error("Uncaught error in {}", t.getName(), e));
+        return thread;
+    });
+
+    private DatabasePositionStore(Connection connection, String copyId) {
+        this.connection = connection;
+        this.copyId = copyId;
+        executor.scheduleWithFixedDelay(this::writeQueued, WRITE_INTERVAL_MS, WRITE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static DatabasePositionStore open(Path worldDirectory) throws SQLException {
+        // Through the driver directly, DriverManager doesn't see drivers inside mod jars
+        String url = "jdbc:h2:file:" + worldDirectory.resolve(FILE_NAME).toAbsolutePath();
+        Connection connection = new Driver().connect(url, new Properties());
+        UUID copyId;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(SCHEMA);
+            statement.execute(INDEX_ID);
+            statement.execute(INDEX_DIMENSION);
+            statement.execute(COPY_SCHEMA);
+            copyId = openCopy(connection, statement);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        connection.setAutoCommit(false);
+        return new DatabasePositionStore(connection, copyId.toString());
+    }
+
+    // A copy closed cleanly keeps its id. After a crash, changes queued before it may be
+    // missing, so a new id has every owner loaded into the copy again.
+    private static UUID openCopy(Connection connection, Statement statement) throws SQLException {
+        UUID id;
+        try (ResultSet row = statement.executeQuery("SELECT id FROM copy WHERE closed")) {
+            id = row.next() ? row.getObject(1, UUID.class) : UUID.randomUUID();
+        }
+        statement.execute("DELETE FROM copy");
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO copy VALUES (?, FALSE)")) {
+            insert.setObject(1, id);
+            insert.execute();
+        }
+        return id;
+    }
+
+    @Override
+    public boolean mirrorsChanges() {
+        return true;
+    }
+
+    @Override
+    public String copyId() {
+        return copyId;
+    }
+
+    @Override
+    public void onLoaded(UUID owner, PositionSnapshot positions) {
+        queued.add(new Clear(owner));
+        positions.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) ->
+                queued.add(new Save(owner, id, new PositionData(dimension, x, y, z, yaw, pitch), serverOnly)));
+    }
+
+    @Override
+    public void onSaved(UUID owner, String id, PositionData position, boolean serverOnly) {
+        queued.add(new Save(owner, id, position, serverOnly));
+    }
+
+    @Override
+    public void onRemoved(UUID owner, String id) {
+        queued.add(new Remove(owner, id));
+    }
+
+    @Override
+    public void onCleared(UUID owner) {
+        queued.add(new Clear(owner));
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findByOwner(UUID owner) {
+        return query("owner = ?", owner);
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findById(String id) {
+        return query("id = ?", id);
+    }
+
+    @Override
+    public CompletableFuture<List<Entry>> findByDimension(RegistryKey<World> dimension) {
+        return query("dimension = ?", dimension.getValue().toString());
+    }
+
+    @Override
+    public boolean coversUnloaded() {
+        return !stale;
+    }
+
+    @Override
+    public void close() {
+        executor.execute(() -> {
+            writeQueued();
+            try {
+                // Only a copy that has every change keeps its id for the next start
+                if (unwritten.isEmpty() && !stale) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("UPDATE copy SET closed = TRUE");
+                    }
+                    connection.commit();
+                }
+                connection.close();
+            } catch (SQLException e) {
+                FrostedLib.LOGGER.error("Could not close the position database", e);
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                FrostedLib.LOGGER.warn("Position database did not finish writing in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<List<Entry>> query(String condition, Object value) {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueued();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT + condition)) {
+                statement.setObject(1, value);
+                List<Entry> results = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD,
+                                new Identifier(rows.getString(3)));
+                        results.add(new Entry(rows.getObject(1, UUID.class), rows.getString(2),
+                                new PositionData(dimension, rows.getDouble(4), rows.getDouble(5), rows.getDouble(6),
+                                        rows.getFloat(7), rows.getFloat(8))));
+                    }
+                }
+                return results;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    // Worker thread only
+    private void writeQueued() {
+        // Behind whatever failed last time, so changes keep their order
+        Change queuedChange;
+        while ((queuedChange = queued.poll()) != null) {
+            unwritten.add(queuedChange);
+        }
+        if (unwritten.isEmpty()) return;
+
+        try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+             PreparedStatement delete = connection.prepareStatement(DELETE);
+             PreparedStatement deleteOwner = connection.prepareStatement(DELETE_OWNER)) {
+            // Batches run when the kind of change switches, so changes keep their order
+            PreparedStatement batch = null;
+            for (Change change : unwritten) {
+                PreparedStatement statement = bind(change, upsert, delete, deleteOwner);
+                if (batch != null && batch != statement) {
+                    batch.executeBatch();
+                }
+                statement.addBatch();
+                batch = statement;
+            }
+            if (batch != null) {
+                batch.executeBatch();
+            }
+            connection.commit();
+            unwritten.clear();
+            failedWrites = 0;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            failed(e);
+        }
+    }
+
+    private void failed(SQLException e) {
+        if (++failedWrites < MAX_FAILED_WRITES) {
+            FrostedLib.LOGGER.warn("Could not write saved positions to the database, trying again", e);
+            return;
+        }
+
+        // Most likely the file itself, retrying forever would only pile up changes
+        FrostedLib.LOGGER.error("Gave up writing {} saved position changes to the database, " +
+                "it is out of date", unwritten.size(), e);
+        unwritten.clear();
+        failedWrites = 0;
+        stale = true;
+    }
+
+    private static PreparedStatement bind(Change change, PreparedStatement upsert, PreparedStatement delete,
+                                          PreparedStatement deleteOwner) throws SQLException {
+        if (change instanceof Save save) {
+            PositionData position = save.position();
+            upsert.setObject(1, save.owner());
+            upsert.setString(2, save.id());
+            upsert.setString(3, position.dimension().getValue().toString());
+            upsert.setDouble(4, position.x());
+            upsert.setDouble(5, position.y());
+            upsert.setDouble(6, position.z());
+            upsert.setFloat(7, position.yaw());
+            upsert.setFloat(8, position.pitch());
+            upsert.setBoolean(9, save.serverOnly());
+            return upsert;
+        }
+        if (change instanceof Remove remove) {
+            delete.setObject(1, remove.owner());
+            delete.setString(2, remove.id());
+            return delete;
+        }
+
+        Clear clear = (Clear) change;
+        deleteOwner.setObject(1, clear.owner());
+        return deleteOwner;
+    }
+}
@@ -16,9 +16,15 @@ public interface EntityDataComponent extends Component {
     // Remove a saved position
     boolean removePosition(String id);
 
-    // Get all saved positions (for debugging/commands)
+    // Get all saved positions (for debugging/commands), as a read-only view
     Map<String, PositionData> getAllPositions();
 
+    // Number of saved positions, without building any of them
+    int getPositionCount();
+
+    // Immutable copy of every saved position, safe to read from any thread
+    PositionSnapshot getSnapshot();
+
     // Clear all saved positions
     void clearAllPositions();
 }
\ No newline at end of file
@@ -1,67 +1,113 @@
 package com.futurefrost.frostedlib.data;
 
+import net.minecraft.entity.Entity;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtList;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+// Attached to most entities but rarely used, so it holds nothing until there are positions
 public class EntityDataComponentImpl implements EntityDataComponent {
-    private final Map<String, PositionData> savedPositions = new HashMap<>();
+    // Volatile so other threads taking snapshots see it appear and go
+    private volatile SavedPositions savedPositions;
+
+    private final Entity entity;
+
+    // Sequence number of the last journal record applied, see PositionJournal
+    private long journalSequence;
+
+    public EntityDataComponentImpl(Entity entity) {
+        this.entity = entity;
+    }
 
     @Override
     public void savePosition(String id, PositionData position) {
+        if (savedPositions == null) {
+            savedPositions = new SavedPositions();
+        }
         savedPositions.put(id, position);
+        journaled(PositionJournal.recordSave(entity, id, position, false));
+        PositionStorage.saved(entity, id, position, false);
     }
 
     @Override
     public Optional<PositionData> getPosition(String id) {
-        return Optional.ofNullable(savedPositions.get(id));
+        return savedPositions == null ? Optional.empty() : Optional.ofNullable(savedPositions.get(id));
     }
 
     @Override
     public boolean removePosition(String id) {
-        return savedPositions.remove(id) != null;
+        if (savedPositions == null || !savedPositions.remove(id)) {
+            return false;
+        }
+        journaled(PositionJournal.recordRemove(entity, id));
+        PositionStorage.removed(entity, id);
+        if (savedPositions.isEmpty()) {
+            savedPositions = null;
+        }
+        return true;
     }
 
     @Override
     public Map<String, PositionData> getAllPositions() {
-        return new HashMap<>(savedPositions);
+        return savedPositions == null ? Map.of() : savedPositions.view();
     }
 
     @Override
-    public void clearAllPositions() {
-        savedPositions.clear();
+    public int getPositionCount() {
+        return savedPositions == null ? 0 : savedPositions.size();
     }
 
     @Override
-    public void readFromNbt(NbtCompound nbt) {
-        savedPositions.clear();
+    public PositionSnapshot getSnapshot() {
+        SavedPositions positions = savedPositions;
+        return positions == null ? PositionSnapshot.EMPTY : positions.snapshot();
+    }
 
-        if (nbt.contains("saved_positions")) {
-            NbtList positionsList = nbt.getList("saved_positions", NbtCompound.COMPOUND_TYPE);
+    @Override
+    public void clearAllPositions() {
+        if (savedPositions == null) return;
 
-            for (int i = 0; i < positionsList.size(); i++) {
-                NbtCompound entryNbt = positionsList.getCompound(i);
-                String id = entryNbt.getString("id");
-                PositionData position = PositionData.fromNbt(entryNbt.getCompound("position"));
-                savedPositions.put(id, position);
-            }
+        savedPositions = null;
+        journaled(PositionJournal.recordClear(entity));
+        PositionStorage.cleared(entity);
+    }
+
+    @Override
+    public void readFromNbt(NbtCompound nbt) {
+        SavedPositions loaded = new SavedPositions();
+        loaded.readFromNbt(nbt);
+        // Changes made after this save but before a crash
+        long savedSequence = nbt.getLong(PositionJournal.SEQUENCE_KEY);
+        journalSequence = PositionJournal.replay(entity.getUuid(), savedSequence, loaded);
+        savedPositions = loaded.isEmpty() ? null : loaded;
+        if (savedPositions != null) {
+            // A replay changed them since the copy last had them
+            String copyId = journalSequence == savedSequence ? nbt.getString(PositionStorage.COPY_KEY) : "";
+            PositionStorage.loaded(entity, copyId, loaded::snapshot);
         }
     }
 
     @Override
     public void writeToNbt(NbtCompound nbt) {
-        NbtList positionsList = new NbtList();
+        // The sequence is kept even without positions, so removals aren't replayed over
+        if (journalSequence > 0) {
+            nbt.putLong(PositionJournal.SEQUENCE_KEY, journalSequence);
+        }
+
+        // Nothing saved, nothing written: most entities never get a position
+        if (savedPositions == null) return;
 
-        for (Map.Entry<String, PositionData> entry : savedPositions.entrySet()) {
-            NbtCompound entryNbt = new NbtCompound();
-            entryNbt.putString("id", entry.getKey());
-            entryNbt.put("position", entry.getValue().toNbt());
-            positionsList.add(entryNbt);
+        savedPositions.writeToNbt(nbt);
+        String copyId = PositionStorage.copyId(entity);
+        if (!copyId.isEmpty()) {
+            nbt.putString(PositionStorage.COPY_KEY, copyId);
         }
+    }
 
-        nbt.put("saved_positions", positionsList);
+    private void journaled(long sequence) {
+        if (sequence > 0) {
+            journalSequence = sequence;
+        }
     }
-}
\ No newline at end of file
+}
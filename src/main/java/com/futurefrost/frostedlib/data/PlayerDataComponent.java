@@ -12,15 +12,26 @@ public interface PlayerDataComponent extends Component {
     // Save a position with a specific ID
     void savePosition(String id, PositionData position);
 
+    // Save a position that is never synced to the player's client
+    void savePosition(String id, PositionData position, boolean serverOnly);
+
+    boolean isServerOnly(String id);
+
     // Get a position by ID, returns Optional.empty() if not found
     Optional<PositionData> getPosition(String id);
 
     // Remove a saved position
     boolean removePosition(String id);
 
-    // Get all saved positions (for debugging/commands)
+    // Get all saved positions (for debugging/commands), as a read-only view
     Map<String, PositionData> getAllPositions();
 
+    // Number of saved positions, without building any of them
+    int getPositionCount();
+
+    // Immutable copy of every saved position, safe to read from any thread
+    PositionSnapshot getSnapshot();
+
     // Clear all saved positions
     void clearAllPositions();
 }
\ No newline at end of file
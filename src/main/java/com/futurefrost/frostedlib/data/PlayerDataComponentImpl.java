@@ -1,21 +1,53 @@
 package com.futurefrost.frostedlib.data;
 
+import com.futurefrost.frostedlib.registry.ModComponents;
+import com.futurefrost.frostedlib.registry.ModGameRules;
+import dev.onyxstudios.cca.api.v3.component.CopyableComponent;
 import dev.onyxstudios.cca.api.v3.component.sync.AutoSyncedComponent;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtList;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.server.network.ServerPlayerEntity;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-public class PlayerDataComponentImpl implements PlayerDataComponent, AutoSyncedComponent {
-    private final Map<String, PositionData> savedPositions = new HashMap<>();
+public class PlayerDataComponentImpl implements PlayerDataComponent, AutoSyncedComponent,
+        CopyableComponent<PlayerDataComponentImpl> {
+    private final PlayerEntity player;
+    private final SavedPositions savedPositions = new SavedPositions();
+
+    // Ids changed or removed since the last sync, sent together at the end of the tick
+    private final Set<String> dirty = new LinkedHashSet<>();
+    private boolean fullSyncPending;
+
+    // Sequence number of the last journal record applied, see PositionJournal
+    private long journalSequence;
+
+    public PlayerDataComponentImpl(PlayerEntity player) {
+        this.player = player;
+    }
 
     @Override
     public void savePosition(String id, PositionData position) {
-        savedPositions.put(id, position);
+        savePosition(id, position, false);
+    }
+
+    @Override
+    public void savePosition(String id, PositionData position, boolean serverOnly) {
+        savedPositions.put(id, position, serverOnly);
+        journaled(PositionJournal.recordSave(player, id, position, serverOnly));
+        PositionStorage.saved(player, id, position, serverOnly);
+        markDirty(id);
+    }
+
+    @Override
+    public boolean isServerOnly(String id) {
+        return savedPositions.isServerOnly(id);
     }
 
     @Override
@@ -25,73 +57,181 @@ public class PlayerDataComponentImpl implements PlayerDataComponent, AutoSyncedC
 
     @Override
     public boolean removePosition(String id) {
-        return savedPositions.remove(id) != null;
+        if (!savedPositions.remove(id)) {
+            return false;
+        }
+        journaled(PositionJournal.recordRemove(player, id));
+        PositionStorage.removed(player, id);
+        markDirty(id);
+        return true;
     }
 
     @Override
     public Map<String, PositionData> getAllPositions() {
-        return new HashMap<>(savedPositions); // Return a copy
+        return savedPositions.view();
+    }
+
+    @Override
+    public int getPositionCount() {
+        return savedPositions.size();
+    }
+
+    @Override
+    public PositionSnapshot getSnapshot() {
+        return savedPositions.snapshot();
     }
 
     @Override
     public void clearAllPositions() {
         savedPositions.clear();
+        journaled(PositionJournal.recordClear(player));
+        PositionStorage.cleared(player);
+
+        // Cheaper to resend nothing than to list every removed id
+        if (!player.getWorld().isClient) {
+            markFullSync();
+        }
     }
 
     @Override
     public void readFromNbt(NbtCompound nbt) {
-        savedPositions.clear();
+        savedPositions.readFromNbt(nbt);
+        // Changes made after this save but before a crash
+        long savedSequence = nbt.getLong(PositionJournal.SEQUENCE_KEY);
+        journalSequence = PositionJournal.replay(player.getUuid(), savedSequence, savedPositions);
+        // A replay changed them since the copy last had them
+        String copyId = journalSequence == savedSequence ? nbt.getString(PositionStorage.COPY_KEY) : "";
+        PositionStorage.loaded(player, copyId, savedPositions::snapshot);
+        dirty.clear();
+    }
+
+    @Override
+    public void writeToNbt(NbtCompound nbt) {
+        savedPositions.writeToNbt(nbt);
+        if (journalSequence > 0) {
+            nbt.putLong(PositionJournal.SEQUENCE_KEY, journalSequence);
+        }
+        String copyId = PositionStorage.copyId(player);
+        if (!copyId.isEmpty()) {
+            nbt.putString(PositionStorage.COPY_KEY, copyId);
+        }
+    }
 
-        if (nbt.contains("saved_positions")) {
-            NbtList positionsList = nbt.getList("saved_positions", NbtCompound.COMPOUND_TYPE);
+    // Used by ALWAYS_COPY on respawn instead of writing and re-reading NBT.
+    // The new player gets a full sync afterwards, so nothing needs marking.
+    @Override
+    public void copyFrom(PlayerDataComponentImpl other) {
+        savedPositions.copyFrom(other.savedPositions);
+        journalSequence = other.journalSequence;
+        dirty.clear();
+        fullSyncPending = false;
+    }
 
-            for (int i = 0; i < positionsList.size(); i++) {
-                NbtCompound entryNbt = positionsList.getCompound(i);
+    private void journaled(long sequence) {
+        if (sequence > 0) {
+            journalSequence = sequence;
+        }
+    }
+
+    private void markDirty(String id) {
+        if (player.getWorld().isClient) return;
 
-                String id = entryNbt.getString("id");
-                PositionData position = PositionData.fromNbt(entryNbt.getCompound("position"));
+        dirty.add(id);
+        PositionSync.markPending(this);
+    }
 
-                savedPositions.put(id, position);
+    // Replaces the client's copy as a whole at the end of the tick
+    void markFullSync() {
+        dirty.clear();
+        fullSyncPending = true;
+        PositionSync.markPending(this);
+    }
+
+    // Sends what changed this tick, called by PositionSync at the end of it. With syncing
+    // off the changes are dropped; turning it back on resends everything, see PositionSync.
+    void flushSync() {
+        if (player instanceof ServerPlayerEntity serverPlayer && !serverPlayer.isRemoved() &&
+                (fullSyncPending || (!dirty.isEmpty() && isSyncEnabled()))) {
+            if (fullSyncPending) {
+                ModComponents.PLAYER_DATA.sync(player);
+            } else {
+                ModComponents.PLAYER_DATA.sync(player, this::writeDeltaPacket);
             }
         }
+        dirty.clear();
+        fullSyncPending = false;
     }
 
+    // Waypoints are private, only the owner's client gets them
     @Override
-    public void writeToNbt(NbtCompound nbt) {
-        NbtList positionsList = new NbtList();
-
-        for (Map.Entry<String, PositionData> entry : savedPositions.entrySet()) {
-            NbtCompound entryNbt = new NbtCompound();
+    public boolean shouldSyncWith(ServerPlayerEntity recipient) {
+        return recipient == player;
+    }
 
-            // Save the ID
-            entryNbt.putString("id", entry.getKey());
+    // Full sync, sent by CCA when the player joins or respawns
+    @Override
+    public void writeSyncPacket(PacketByteBuf buf, ServerPlayerEntity recipient) {
+        List<String> synced = new ArrayList<>();
+        if (isSyncEnabled()) {
+            savedPositions.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) -> {
+                if (!serverOnly) synced.add(id);
+            });
+        }
 
-            // Save the position data
-            entryNbt.put("position", entry.getValue().toNbt());
+        buf.writeBoolean(true);
+        writeEntries(buf, synced, List.of());
+    }
 
-            positionsList.add(entryNbt);
+    // Only the positions changed or removed since the last sync
+    private void writeDeltaPacket(PacketByteBuf buf, ServerPlayerEntity recipient) {
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String id : dirty) {
+            if (savedPositions.get(id) != null && !savedPositions.isServerOnly(id)) {
+                changed.add(id);
+            } else {
+                // Also covers positions that just became server-only
+                removed.add(id);
+            }
         }
 
-        nbt.put("saved_positions", positionsList);
+        buf.writeBoolean(false);
+        writeEntries(buf, changed, removed);
     }
 
-    // Auto-sync component to client
-    @Override
-    public void writeSyncPacket(PacketByteBuf buf, ServerPlayerEntity recipient) {
-        buf.writeNbt(this.toNbt());
+    private void writeEntries(PacketByteBuf buf, List<String> changed, List<String> removed) {
+        buf.writeVarInt(changed.size());
+        for (String id : changed) {
+            buf.writeString(id);
+            savedPositions.get(id).toPacket(buf);
+        }
+
+        buf.writeVarInt(removed.size());
+        for (String id : removed) {
+            buf.writeString(id);
+        }
     }
 
     @Override
     public void applySyncPacket(PacketByteBuf buf) {
-        NbtCompound nbt = buf.readNbt();
-        if (nbt != null) {
-            this.readFromNbt(nbt);
+        boolean full = buf.readBoolean();
+        if (full) {
+            savedPositions.clear();
+        }
+
+        int changed = buf.readVarInt();
+        for (int i = 0; i < changed; i++) {
+            String id = buf.readString();
+            savedPositions.put(id, PositionData.fromPacket(buf));
+        }
+
+        int removed = buf.readVarInt();
+        for (int i = 0; i < removed; i++) {
+            savedPositions.remove(buf.readString());
         }
     }
 
-    private NbtCompound toNbt() {
-        NbtCompound nbt = new NbtCompound();
-        this.writeToNbt(nbt);
-        return nbt;
+    private boolean isSyncEnabled() {
+        return player.getWorld().getGameRules().getBoolean(ModGameRules.SYNC_POSITIONS);
     }
-}
\ No newline at end of file
+}
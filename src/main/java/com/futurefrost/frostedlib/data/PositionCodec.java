@@ -0,0 +1,173 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Packed NBT layout for saved positions, shared by both components.
+ * <p>
+ * Instead of one compound per position, everything goes in a few arrays under
+ * {@code "positions"}:
+ * <ul>
+ *     <li>{@code ids}: position ids, one string each</li>
+ *     <li>{@code dimensions}: palette of the dimensions in use</li>
+ *     <li>{@code coords}: x, y, z of each position as raw double bits</li>
+ *     <li>{@code extra}: palette index, yaw and pitch (raw float bits) of each position</li>
+ *     <li>{@code server_only}: ids of positions never synced to clients, only if there are any</li>
+ * </ul>
+ * The old {@code "saved_positions"} list is still read, so existing worlds load as before.
+ */
+public class PositionCodec {
+
+    public interface Sink {
+        void accept(String id, PositionData position, boolean serverOnly);
+    }
+
+    public static final String KEY = "positions";
+    public static final String LEGACY_KEY = "saved_positions";
+
+    private static final int COORDS_STRIDE = 3;
+    private static final int EXTRA_STRIDE = 3;
+
+    public static void write(NbtCompound nbt, PositionTable positions) {
+        write(nbt, positions.size(), positions::forEach);
+    }
+
+    // Works off the server thread, for saving from a snapshot
+    public static void write(NbtCompound nbt, PositionSnapshot positions) {
+        write(nbt, positions.size(), positions::forEach);
+    }
+
+    private static void write(NbtCompound nbt, int size, Consumer<PositionTable.Visitor> positions) {
+        NbtList ids = new NbtList();
+        NbtList dimensions = new NbtList();
+        Map<RegistryKey<World>, Integer> palette = new HashMap<>();
+        long[] coords = new long[size * COORDS_STRIDE];
+        int[] extra = new int[size * EXTRA_STRIDE];
+        NbtList serverOnlyIds = new NbtList();
+
+        positions.accept(new PositionTable.Visitor() {
+            private int index = 0;
+
+            @Override
+            public void visit(String id, RegistryKey<World> dimension, double x, double y, double z,
+                              float yaw, float pitch, boolean serverOnly) {
+                ids.add(NbtString.of(id));
+                if (serverOnly) {
+                    serverOnlyIds.add(NbtString.of(id));
+                }
+
+                Integer paletteIndex = palette.get(dimension);
+                if (paletteIndex == null) {
+                    paletteIndex = palette.size();
+                    palette.put(dimension, paletteIndex);
+                    dimensions.add(NbtString.of(dimension.getValue().toString()));
+                }
+
+                coords[index * COORDS_STRIDE] = Double.doubleToRawLongBits(x);
+                coords[index * COORDS_STRIDE + 1] = Double.doubleToRawLongBits(y);
+                coords[index * COORDS_STRIDE + 2] = Double.doubleToRawLongBits(z);
+
+                extra[index * EXTRA_STRIDE] = paletteIndex;
+                extra[index * EXTRA_STRIDE + 1] = Float.floatToRawIntBits(yaw);
+                extra[index * EXTRA_STRIDE + 2] = Float.floatToRawIntBits(pitch);
+                index++;
+            }
+        });
+
+        NbtCompound packed = new NbtCompound();
+        packed.put("ids", ids);
+        packed.put("dimensions", dimensions);
+        packed.putLongArray("coords", coords);
+        packed.putIntArray("extra", extra);
+        if (!serverOnlyIds.isEmpty()) {
+            packed.put("server_only", serverOnlyIds);
+        }
+        nbt.put(KEY, packed);
+    }
+
+    /**
+     * The stored positions, whichever layout they were saved in, without decoding them.
+     * Returns null when there are none.
+     */
+    public static NbtCompound extract(NbtCompound nbt) {
+        String key;
+        if (nbt.contains(KEY, NbtElement.COMPOUND_TYPE)) {
+            key = KEY;
+        } else if (nbt.contains(LEGACY_KEY, NbtElement.LIST_TYPE)) {
+            key = LEGACY_KEY;
+        } else {
+            return null;
+        }
+
+        NbtCompound stored = new NbtCompound();
+        stored.put(key, nbt.get(key));
+        return stored;
+    }
+
+    // Hands every stored position to the consumer, whichever layout it was saved in
+    public static void read(NbtCompound nbt, Sink consumer) {
+        if (nbt.contains(KEY, NbtElement.COMPOUND_TYPE)) {
+            readPacked(nbt.getCompound(KEY), consumer);
+        } else if (nbt.contains(LEGACY_KEY, NbtElement.LIST_TYPE)) {
+            readLegacy(nbt.getList(LEGACY_KEY, NbtElement.COMPOUND_TYPE), consumer);
+        }
+    }
+
+    private static void readPacked(NbtCompound packed, Sink consumer) {
+        NbtList ids = packed.getList("ids", NbtElement.STRING_TYPE);
+        NbtList dimensionNames = packed.getList("dimensions", NbtElement.STRING_TYPE);
+        long[] coords = packed.getLongArray("coords");
+        int[] extra = packed.getIntArray("extra");
+
+        Set<String> serverOnly = new HashSet<>();
+        NbtList serverOnlyIds = packed.getList("server_only", NbtElement.STRING_TYPE);
+        for (int i = 0; i < serverOnlyIds.size(); i++) {
+            serverOnly.add(serverOnlyIds.getString(i));
+        }
+
+        // Each dimension key is built once, not once per position
+        List<RegistryKey<World>> dimensions = new ArrayList<>(dimensionNames.size());
+        for (int i = 0; i < dimensionNames.size(); i++) {
+            dimensions.add(RegistryKey.of(RegistryKeys.WORLD, new Identifier(dimensionNames.getString(i))));
+        }
+
+        int size = Math.min(ids.size(),
+                Math.min(coords.length / COORDS_STRIDE, extra.length / EXTRA_STRIDE));
+        for (int i = 0; i < size; i++) {
+            int dimension = extra[i * EXTRA_STRIDE];
+            if (dimension < 0 || dimension >= dimensions.size()) continue;
+
+            String id = ids.getString(i);
+            consumer.accept(id, new PositionData(
+                    dimensions.get(dimension),
+                    Double.longBitsToDouble(coords[i * COORDS_STRIDE]),
+                    Double.longBitsToDouble(coords[i * COORDS_STRIDE + 1]),
+                    Double.longBitsToDouble(coords[i * COORDS_STRIDE + 2]),
+                    Float.intBitsToFloat(extra[i * EXTRA_STRIDE + 1]),
+                    Float.intBitsToFloat(extra[i * EXTRA_STRIDE + 2])
+            ), serverOnly.contains(id));
+        }
+    }
+
+    private static void readLegacy(NbtList positionsList, Sink consumer) {
+        for (int i = 0; i < positionsList.size(); i++) {
+            NbtCompound entryNbt = positionsList.getCompound(i);
+            consumer.accept(entryNbt.getString("id"), PositionData.fromNbt(entryNbt.getCompound("position")), false);
+        }
+    }
+}
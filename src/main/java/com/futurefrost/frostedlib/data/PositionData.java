@@ -2,6 +2,7 @@ package com.futurefrost.frostedlib.data;
 
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtHelper;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.registry.RegistryKeys;
 import net.minecraft.util.Identifier;
@@ -55,6 +56,23 @@ public record PositionData(
         return new PositionData(dimension, x, y, z, yaw, pitch);
     }
 
+    // Write to a sync packet
+    public void toPacket(PacketByteBuf buf) {
+        buf.writeIdentifier(dimension.getValue());
+        buf.writeDouble(x);
+        buf.writeDouble(y);
+        buf.writeDouble(z);
+        buf.writeFloat(yaw);
+        buf.writeFloat(pitch);
+    }
+
+    // Read from a sync packet
+    public static PositionData fromPacket(PacketByteBuf buf) {
+        RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, buf.readIdentifier());
+        return new PositionData(dimension, buf.readDouble(), buf.readDouble(), buf.readDouble(),
+                buf.readFloat(), buf.readFloat());
+    }
+
     // Convert to Vec3d for easy use
     public Vec3d toVec3d() {
         return new Vec3d(x, y, z);
@@ -0,0 +1,436 @@
+package com.futurefrost.frostedlib.data;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import com.futurefrost.frostedlib.registry.ModGameRules;
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.world.World;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Optional write-ahead log for saved positions, used while the
+ * {@code frostedlibJournalPositions} game rule is on.
+ * <p>
+ * Positions normally reach disk only when their player or entity is saved. With the
+ * journal on, every save, removal and clear is also appended as a small binary record
+ * to {@code frostedlib_positions.journal} in the world folder, through a memory-mapped
+ * buffer. Appending only hands the record to the worker thread and returns, so a crash
+ * before the worker has copied it into the mapping loses it. Once it is in the mapping
+ * it survives the server process crashing, and the mapping is flushed to disk every second.
+ * <p>
+ * Each record has a sequence number, and components store the last one they applied
+ * next to their positions. On load, a component replays the records newer than that,
+ * so nothing since the last full save is lost. One worker thread owns the file. It
+ * compacts the log to the latest record per position once it grows, and deletes it
+ * after a clean shutdown, when every position has been saved.
+ */
+public class PositionJournal {
+
+    // Where components store the sequence number of the last record they applied
+    public static final String SEQUENCE_KEY = "journal_seq";
+
+    private static final String FILE_NAME = "frostedlib_positions.journal";
+    private static final int MAGIC = 0x464C504A; // "FLPJ"
+    private static final int VERSION = 1;
+
+    // Magic, version, next sequence number
+    private static final int HEADER_SIZE = 16;
+    // Payload length and CRC32 before each record, a length of 0 ends the log
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final int INITIAL_MAPPING = 1 << 20;
+    private static final int COMPACT_THRESHOLD = 4 << 20;
+
+    static final byte SAVE = 1;
+    static final byte REMOVE = 2;
+    static final byte CLEAR = 3;
+
+    record Record(byte type, long sequence, UUID owner, String id, PositionData position,
+                          boolean serverOnly) {
+    }
+
+    // What the log holds for an owner at load time, replayed when the owner loads
+    private static class Pending {
+        long clearedAt;
+        final Map<String, Record> records = new LinkedHashMap<>();
+    }
+
+    // Server thread only
+    private static Path directory;
+    private static Map<UUID, Pending> pending = new HashMap<>();
+    private static long nextSequence;
+    private static Writer writer;
+
+    /**
+     * Replays an existing journal into memory. Called when the server starts, before
+     * any world or player is loaded. Without a journal file nothing is opened until
+     * the game rule asks for it.
+     */
+    public static void open(MinecraftServer server) {
+        directory = server.getSavePath(WorldSavePath.ROOT);
+        pending = new HashMap<>();
+        // Keeps sequence numbers increasing even if the file is deleted between runs
+        nextSequence = System.currentTimeMillis() * 1000;
+
+        Path path = directory.resolve(FILE_NAME);
+        if (!Files.exists(path)) return;
+
+        Map<UUID, Writer.Owner> live = new HashMap<>();
+        try {
+            nextSequence = Math.max(nextSequence, replayFile(path, live));
+            FrostedLib.LOGGER.info("Replayed position journal for {} entities", pending.size());
+        } catch (IOException e) {
+            FrostedLib.LOGGER.error("Could not read position journal {}", path, e);
+        }
+        writer = new Writer(path, live, nextSequence);
+    }
+
+    /**
+     * Empties the journal and stops its worker. Called after the server stopped and
+     * saved everything. Records of entities that never loaded this session are kept,
+     * without any the file is deleted.
+     */
+    public static void close() {
+        if (writer != null) {
+            writer.close(nextSequence, new HashSet<>(pending.keySet()));
+            writer = null;
+        }
+        pending = new HashMap<>();
+        directory = null;
+    }
+
+    // Whether the owner has records not replayed yet, their saved file is behind the journal
+    public static boolean hasPending(UUID owner) {
+        return pending.containsKey(owner);
+    }
+
+    // The sequence number of the record, or 0 if nothing was journaled
+    static long recordSave(Entity owner, String id, PositionData position, boolean serverOnly) {
+        return append(owner, SAVE, id, position, serverOnly);
+    }
+
+    static long recordRemove(Entity owner, String id) {
+        return append(owner, REMOVE, id, null, false);
+    }
+
+    static long recordClear(Entity owner) {
+        return append(owner, CLEAR, "", null, false);
+    }
+
+    /**
+     * Applies every record for the owner newer than {@code savedSequence} to its freshly
+     * loaded positions. Returns the sequence number the positions are now at.
+     */
+    static long replay(UUID owner, long savedSequence, SavedPositions positions) {
+        Pending records = pending.remove(owner);
+        if (records == null) return savedSequence;
+
+        long latest = savedSequence;
+        if (records.clearedAt > savedSequence) {
+            positions.clear();
+            latest = records.clearedAt;
+        }
+        for (Record record : records.records.values()) {
+            if (record.sequence() <= savedSequence) continue;
+
+            if (record.type() == SAVE) {
+                positions.put(record.id(), record.position(), record.serverOnly());
+            } else {
+                positions.remove(record.id());
+            }
+            latest = Math.max(latest, record.sequence());
+        }
+        return latest;
+    }
+
+    private static long append(Entity owner, byte type, String id, PositionData position, boolean serverOnly) {
+        if (owner.getWorld().isClient || directory == null) return 0;
+        // With the rule off, changes reach disk with their owner only, as before
+        if (!owner.getWorld().getGameRules().getBoolean(ModGameRules.JOURNAL_POSITIONS)) return 0;
+
+        if (writer == null) {
+            writer = new Writer(directory.resolve(FILE_NAME), new HashMap<>(), nextSequence);
+        }
+
+        long sequence = nextSequence++;
+        UUID uuid = owner.getUuid();
+        writer.append(uuid, type, id, encode(new Record(type, sequence, uuid, id, position, serverOnly)),
+                nextSequence);
+        return sequence;
+    }
+
+    // Reads a journal into the pending records without taking the file over. For tests.
+    static long load(Path path) throws IOException {
+        pending = new HashMap<>();
+        return replayFile(path, new HashMap<>());
+    }
+
+    // Reads every intact record into the pending and live maps, returns the stored next sequence
+    private static long replayFile(Path path, Map<UUID, Writer.Owner> live) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a position journal");
+        }
+        long stored = buffer.getLong(8);
+
+        int offset = HEADER_SIZE;
+        while (offset + FRAME_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + FRAME_HEADER_SIZE + length > buffer.limit()) break;
+
+            byte[] frame = new byte[FRAME_HEADER_SIZE + length];
+            buffer.get(offset, frame);
+            CRC32 crc = new CRC32();
+            crc.update(frame, FRAME_HEADER_SIZE, length);
+            // Torn by a crash mid-write, nothing after it was written either
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) break;
+
+            Record record = decode(frame);
+            Pending records = pending.computeIfAbsent(record.owner(), owner -> new Pending());
+            if (record.type() == CLEAR) {
+                records.records.clear();
+                records.clearedAt = Math.max(records.clearedAt, record.sequence());
+            } else {
+                records.records.put(record.id(), record);
+            }
+            live.computeIfAbsent(record.owner(), owner -> new Writer.Owner()).apply(record.type(), record.id(), frame);
+
+            stored = Math.max(stored, record.sequence() + 1);
+            offset += frame.length;
+        }
+        return stored;
+    }
+
+    static byte[] encode(Record record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(0); // Frame header, filled in below
+            out.writeByte(record.type());
+            out.writeLong(record.sequence());
+            out.writeLong(record.owner().getMostSignificantBits());
+            out.writeLong(record.owner().getLeastSignificantBits());
+            out.writeUTF(record.id());
+            if (record.type() == SAVE) {
+                PositionData position = record.position();
+                out.writeBoolean(record.serverOnly());
+                out.writeUTF(position.dimension().getValue().toString());
+                out.writeDouble(position.x());
+                out.writeDouble(position.y());
+                out.writeDouble(position.z());
+                out.writeFloat(position.yaw());
+                out.writeFloat(position.pitch());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] frame = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(frame, FRAME_HEADER_SIZE, frame.length - FRAME_HEADER_SIZE);
+        ByteBuffer.wrap(frame).putInt(frame.length - FRAME_HEADER_SIZE).putInt((int) crc.getValue());
+        return frame;
+    }
+
+    private static Record decode(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame, FRAME_HEADER_SIZE,
+                frame.length - FRAME_HEADER_SIZE));
+        byte type = in.readByte();
+        long sequence = in.readLong();
+        UUID owner = new UUID(in.readLong(), in.readLong());
+        String id = in.readUTF();
+        if (type != SAVE) {
+            return new Record(type, sequence, owner, id, null, false);
+        }
+
+        boolean serverOnly = in.readBoolean();
+        RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, new Identifier(in.readUTF()));
+        PositionData position = new PositionData(dimension, in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readFloat(), in.readFloat());
+        return new Record(type, sequence, owner, id, position, serverOnly);
+    }
+
+    /**
+     * Owns the journal file. Everything here runs on its single worker thread, in the
+     * order it was submitted, so the server thread never waits on disk.
+     */
+    private static class Writer {
+
+        // The latest frame per position of one owner, what compaction keeps
+        private static class Owner {
+            byte[] clear;
+            final Map<String, byte[]> frames = new LinkedHashMap<>();
+
+            void apply(byte type, String id, byte[] frame) {
+                if (type == CLEAR) {
+                    frames.clear();
+                    clear = frame;
+                } else {
+                    frames.put(id, frame);
+                }
+            }
+        }
+
+        private final Path path;
+        private final Map<UUID, Owner> live;
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FrostedLib Position Journal");
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> FrostedLib.LOGGER.error("Uncaught error in {}", t.getName(), e));
+            return thread;
+        });
+
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long nextSequence;
+        private int compactAt = COMPACT_THRESHOLD;
+        private boolean unflushed;
+        private boolean failed;
+
+        Writer(Path path, Map<UUID, Owner> live, long nextSequence) {
+            this.path = path;
+            this.live = live;
+            this.nextSequence = nextSequence;
+
+            // Start from a clean file holding only what is still live
+            executor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+            executor.scheduleWithFixedDelay(this::flush, 1, 1, TimeUnit.SECONDS);
+        }
+
+        void append(UUID owner, byte type, String id, byte[] frame, long nextSequence) {
+            executor.execute(() -> {
+                if (failed) return;
+                try {
+                    live.computeIfAbsent(owner, key -> new Owner()).apply(type, id, frame);
+                    this.nextSequence = nextSequence;
+
+                    ensureCapacity(frame.length);
+                    buffer.put(frame);
+                    buffer.putLong(8, nextSequence);
+                    unflushed = true;
+
+                    if (buffer.position() > compactAt) {
+                        compact();
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+        }
+
+        // Keeps only the records of owners that still need replaying, then stops
+        void close(long nextSequence, Set<UUID> keep) {
+            executor.execute(() -> {
+                if (failed) return;
+                try {
+                    this.nextSequence = nextSequence;
+                    live.keySet().retainAll(keep);
+                    if (live.isEmpty()) {
+                        channel.close();
+                        Files.deleteIfExists(path);
+                        return;
+                    }
+                    compact();
+                    buffer.force();
+                    channel.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    FrostedLib.LOGGER.warn("Position journal did not finish writing in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void flush() {
+            if (!unflushed || failed) return;
+            buffer.force();
+            unflushed = false;
+        }
+
+        // Rewrites the log as the latest record per position, next to it, then swaps it in
+        private void compact() throws IOException {
+            Path temporary = path.resolveSibling(FILE_NAME + ".tmp");
+            int size = HEADER_SIZE;
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(nextSequence);
+                out.write(header.flip());
+
+                for (Owner owner : live.values()) {
+                    if (owner.clear != null) {
+                        size += out.write(ByteBuffer.wrap(owner.clear));
+                    }
+                    for (byte[] frame : owner.frames.values()) {
+                        size += out.write(ByteBuffer.wrap(frame));
+                    }
+                }
+                out.force(true);
+            }
+
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPING, size * 2L));
+            buffer.position(size);
+            compactAt = Math.max(COMPACT_THRESHOLD, size * 2);
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            // Keep room for the zero length that ends the log
+            if (buffer.remaining() >= bytes + FRAME_HEADER_SIZE) return;
+
+            int position = buffer.position();
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(buffer.capacity() * 2L, position + bytes + FRAME_HEADER_SIZE));
+            buffer.position(position);
+        }
+
+        private void fail(IOException e) {
+            failed = true;
+            FrostedLib.LOGGER.error("Position journal {} failed, positions are no longer journaled", path, e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.nbt.NbtCompound;
+
+/**
+ * Immutable set of saved positions, safe to read from any thread.
+ * <p>
+ * A persistent hash trie: each level uses five bits of the id's hash, and a change
+ * copies only the nodes on the path to the changed id while sharing the rest with the
+ * previous snapshot. Saving or removing a position costs a few small array copies, so
+ * the components publish a new snapshot on every change and readers never lock.
+ * <p>
+ * Iteration follows hash order, not the order positions were saved in.
+ */
+public final class PositionSnapshot {
+
+    public static final PositionSnapshot EMPTY = new PositionSnapshot(Node.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PositionSnapshot(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // Snapshot of a table's current contents, built on the thread that owns the table
+    public static PositionSnapshot copyOf(PositionTable table) {
+        PositionSnapshot[] snapshot = {EMPTY};
+        table.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) ->
+                snapshot[0] = snapshot[0].with(id, new PositionData(dimension, x, y, z, yaw, pitch), serverOnly));
+        return snapshot[0];
+    }
+
+    // Decodes stored NBT straight into a snapshot, for readers that find it not decoded yet
+    public static PositionSnapshot decode(NbtCompound nbt) {
+        PositionSnapshot[] snapshot = {EMPTY};
+        PositionCodec.read(nbt, (id, position, serverOnly) ->
+                snapshot[0] = snapshot[0].with(id, position, serverOnly));
+        return snapshot[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public PositionData get(String id) {
+        Leaf leaf = root.find(id, hash(id), 0);
+        return leaf == null ? null : leaf.position;
+    }
+
+    public boolean contains(String id) {
+        return root.find(id, hash(id), 0) != null;
+    }
+
+    public boolean isServerOnly(String id) {
+        Leaf leaf = root.find(id, hash(id), 0);
+        return leaf != null && leaf.serverOnly;
+    }
+
+    // A new snapshot with the position saved under id, this one is left as it is
+    public PositionSnapshot with(String id, PositionData position, boolean serverOnly) {
+        int hash = hash(id);
+        boolean added = root.find(id, hash, 0) == null;
+        return new PositionSnapshot(root.with(new Leaf(id, hash, position, serverOnly), 0),
+                added ? size + 1 : size);
+    }
+
+    // A new snapshot without id, or this one if it isn't there
+    public PositionSnapshot without(String id) {
+        int hash = hash(id);
+        if (root.find(id, hash, 0) == null) return this;
+        return new PositionSnapshot(root.without(id, hash, 0), size - 1);
+    }
+
+    public void forEach(PositionTable.Visitor visitor) {
+        root.forEach(visitor);
+    }
+
+    // How many nodes a lookup of id walks through, or -1 if it isn't there. For tests.
+    int depth(String id) {
+        int hash = hash(id);
+        Node node = root;
+        for (int depth = 1, shift = 0; ; depth++, shift += BITS) {
+            if (shift >= Integer.SIZE) {
+                return node.find(id, hash, shift) != null ? depth : -1;
+            }
+
+            int bit = Node.bit(hash, shift);
+            if ((node.bitmap & bit) == 0) return -1;
+            Object child = node.children[node.index(bit)];
+            if (child instanceof Leaf leaf) {
+                return leaf.id().equals(id) ? depth : -1;
+            }
+            node = (Node) child;
+        }
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private record Leaf(String id, int hash, PositionData position, boolean serverOnly) {
+    }
+
+    /**
+     * Children are leaves or nodes, stored densely in bitmap order. Past the last hash
+     * bits a node just lists the leaves whose hashes collide.
+     */
+    private static final class Node {
+
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] children;
+
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        Leaf find(String id, int hash, int shift) {
+            if (shift >= Integer.SIZE) {
+                for (Object child : children) {
+                    if (((Leaf) child).id().equals(id)) return (Leaf) child;
+                }
+                return null;
+            }
+
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+
+            Object child = children[index(bit)];
+            if (child instanceof Leaf leaf) {
+                return leaf.hash() == hash && leaf.id().equals(id) ? leaf : null;
+            }
+            return ((Node) child).find(id, hash, shift + BITS);
+        }
+
+        Node with(Leaf leaf, int shift) {
+            if (shift >= Integer.SIZE) {
+                for (int i = 0; i < children.length; i++) {
+                    if (((Leaf) children[i]).id().equals(leaf.id())) {
+                        return new Node(0, replace(children, i, leaf));
+                    }
+                }
+                return new Node(0, insert(children, children.length, leaf));
+            }
+
+            int bit = bit(leaf.hash(), shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                return new Node(bitmap | bit, insert(children, i, leaf));
+            }
+
+            Object child = children[i];
+            Object replacement;
+            if (child instanceof Leaf existing) {
+                if (existing.hash() == leaf.hash() && existing.id().equals(leaf.id())) {
+                    replacement = leaf;
+                } else {
+                    // Two ids share this slot, push both one level down
+                    replacement = EMPTY.with(existing, shift + BITS).with(leaf, shift + BITS);
+                }
+            } else {
+                replacement = ((Node) child).with(leaf, shift + BITS);
+            }
+            return new Node(bitmap, replace(children, i, replacement));
+        }
+
+        // The id must be present
+        Node without(String id, int hash, int shift) {
+            if (shift >= Integer.SIZE) {
+                for (int i = 0; i < children.length; i++) {
+                    if (((Leaf) children[i]).id().equals(id)) {
+                        return new Node(0, remove(children, i));
+                    }
+                }
+                return this;
+            }
+
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            Object child = children[i];
+
+            if (child instanceof Node node) {
+                Node shrunk = node.without(id, hash, shift + BITS);
+                if (shrunk.children.length == 1 && shrunk.children[0] instanceof Leaf leaf) {
+                    // A single leaf left below, pull it up so lookups stay short
+                    return new Node(bitmap, replace(children, i, leaf));
+                }
+                if (shrunk.children.length > 0) {
+                    return new Node(bitmap, replace(children, i, shrunk));
+                }
+            }
+
+            if (bitmap == bit) return EMPTY;
+            return new Node(bitmap & ~bit, remove(children, i));
+        }
+
+        void forEach(PositionTable.Visitor visitor) {
+            for (Object child : children) {
+                if (child instanceof Leaf leaf) {
+                    PositionData position = leaf.position();
+                    visitor.visit(leaf.id(), position.dimension(), position.x(), position.y(), position.z(),
+                            position.yaw(), position.pitch(), leaf.serverOnly());
+                } else {
+                    ((Node) child).forEach(visitor);
+                }
+            }
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private static Object[] insert(Object[] array, int i, Object value) {
+            Object[] copy = new Object[array.length + 1];
+            System.arraycopy(array, 0, copy, 0, i);
+            copy[i] = value;
+            System.arraycopy(array, i, copy, i + 1, array.length - i);
+            return copy;
+        }
+
+        private static Object[] replace(Object[] array, int i, Object value) {
+            Object[] copy = array.clone();
+            copy[i] = value;
+            return copy;
+        }
+
+        private static Object[] remove(Object[] array, int i) {
+            Object[] copy = new Object[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.futurefrost.frostedlib.data;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import com.futurefrost.frostedlib.registry.ModComponents;
+import com.futurefrost.frostedlib.registry.ModGameRules;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the {@link PositionStore} of the running server and forwards component changes
+ * to it.
+ * <p>
+ * The store is picked when the server starts, before any world or entity loads, so it
+ * sees every owner load: a factory set by another mod wins, then the database if
+ * {@code frostedlibPositionDatabase} is on, then the component store. Changing the rule
+ * takes effect on the next start.
+ */
+public class PositionStorage {
+
+    // Saved with owners the store's copy has as they were saved, see PositionStore#copyId
+    public static final String COPY_KEY = "position_copy";
+
+    private static Function<MinecraftServer, PositionStore> factory;
+    private static PositionStore store;
+
+    // For mods that bring their own store. Call before the server starts.
+    public static void setFactory(Function<MinecraftServer, PositionStore> storeFactory) {
+        factory = storeFactory;
+    }
+
+    // The running server's store. Only valid between server start and stop.
+    public static PositionStore get() {
+        if (store == null) {
+            throw new IllegalStateException("No position store, the server isn't running");
+        }
+        return store;
+    }
+
+    public static void open(MinecraftServer server) {
+        store = create(server);
+        FrostedLib.LOGGER.info("Saved positions use {}", store.getClass().getSimpleName());
+    }
+
+    public static void close() {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    private static PositionStore create(MinecraftServer server) {
+        if (factory != null) {
+            return factory.apply(server);
+        }
+        // The worlds don't exist yet, the rules come straight from the level properties
+        if (server.getSaveProperties().getGameRules().getBoolean(ModGameRules.POSITION_DATABASE)) {
+            try {
+                return DatabasePositionStore.open(server.getSavePath(WorldSavePath.ROOT));
+            } catch (SQLException | RuntimeException e) {
+                FrostedLib.LOGGER.error("Could not open the position database, falling back to components", e);
+            }
+        }
+        return new ComponentPositionStore(server);
+    }
+
+    // Non-player entities gone for good take their positions with them
+    public static void onEntityUnloaded(Entity entity) {
+        if (entity instanceof PlayerEntity || entity.getRemovalReason() == null ||
+                !entity.getRemovalReason().shouldDestroy()) return;
+
+        PositionStore current = mirroring(entity);
+        if (current != null && ModComponents.ENTITY_DATA.maybeGet(entity).isPresent()) {
+            current.onCleared(entity.getUuid());
+        }
+    }
+
+    // For tools that edit saved positions of players who aren't online
+    public static void offlineChanged(UUID owner, PositionSnapshot positions) {
+        PositionStore current = store;
+        if (current != null && current.mirrorsChanges()) {
+            current.onLoaded(owner, positions);
+        }
+    }
+
+    // Change hooks for the components, server side only
+
+    // Owners saved with the id of the current copy are in it already, they stay encoded
+    static void loaded(Entity owner, String savedCopyId, Supplier<PositionSnapshot> positions) {
+        PositionStore current = mirroring(owner);
+        if (current != null && (savedCopyId.isEmpty() || !savedCopyId.equals(current.copyId()))) {
+            current.onLoaded(owner.getUuid(), positions.get());
+        }
+    }
+
+    // What to save under COPY_KEY: every change since the owner loaded went to the copy,
+    // unless the store gave up on it. Empty when there is no copy to vouch for.
+    static String copyId(Entity owner) {
+        PositionStore current = mirroring(owner);
+        if (current == null || !current.coversUnloaded()) return "";
+        String id = current.copyId();
+        return id == null ? "" : id;
+    }
+
+    static void saved(Entity owner, String id, PositionData position, boolean serverOnly) {
+        PositionStore current = mirroring(owner);
+        if (current != null) {
+            current.onSaved(owner.getUuid(), id, position, serverOnly);
+        }
+    }
+
+    static void removed(Entity owner, String id) {
+        PositionStore current = mirroring(owner);
+        if (current != null) {
+            current.onRemoved(owner.getUuid(), id);
+        }
+    }
+
+    static void cleared(Entity owner) {
+        PositionStore current = mirroring(owner);
+        if (current != null) {
+            current.onCleared(owner.getUuid());
+        }
+    }
+
+    private static PositionStore mirroring(Entity owner) {
+        PositionStore current = store;
+        if (current == null || !current.mirrorsChanges() || owner.getWorld().isClient) return null;
+        return current;
+    }
+}
@@ -0,0 +1,67 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Looks up saved positions across every owner, players and entities alike.
+ * <p>
+ * The components stay the source of truth for their own positions. A store either
+ * reads them directly ({@link ComponentPositionStore}, the default) or keeps its own
+ * copy that the components update on every change ({@link DatabasePositionStore}).
+ * Other mods can plug in their own through {@link PositionStorage#setFactory}.
+ * <p>
+ * Change hooks are called on the server thread. Queries may complete on any thread.
+ */
+public interface PositionStore {
+
+    record Entry(UUID owner, String id, PositionData position) {
+    }
+
+    /**
+     * Whether the store keeps its own copy and needs the change hooks below. Stores that
+     * read the components return false and never get them.
+     */
+    default boolean mirrorsChanges() {
+        return false;
+    }
+
+    /**
+     * Identifies the copy kept by a store that mirrors changes. Owners are saved with the id
+     * of the copy that has them, and aren't loaded into that copy again until they change
+     * without it. Null loads every owner into the copy each time it loads.
+     */
+    default String copyId() {
+        return null;
+    }
+
+    // Everything an owner has, as it was loaded. Replaces whatever the store had for it.
+    default void onLoaded(UUID owner, PositionSnapshot positions) {
+    }
+
+    default void onSaved(UUID owner, String id, PositionData position, boolean serverOnly) {
+    }
+
+    default void onRemoved(UUID owner, String id) {
+    }
+
+    default void onCleared(UUID owner) {
+    }
+
+    CompletableFuture<List<Entry>> findByOwner(UUID owner);
+
+    CompletableFuture<List<Entry>> findById(String id);
+
+    CompletableFuture<List<Entry>> findByDimension(RegistryKey<World> dimension);
+
+    // Whether queries also see owners that aren't loaded right now
+    boolean coversUnloaded();
+
+    // Called when the server stops, after everything was saved
+    default void close() {
+    }
+}
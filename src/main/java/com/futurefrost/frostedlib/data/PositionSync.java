@@ -0,0 +1,48 @@
+package com.futurefrost.frostedlib.data;
+
+import com.futurefrost.frostedlib.registry.ModComponents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Player components whose positions changed this tick. Each is synced once at the end
+ * of the tick, so any number of saves and removals in one tick go out as one delta
+ * packet. Server thread only.
+ */
+public class PositionSync {
+
+    private static final Set<PlayerDataComponentImpl> PENDING = new LinkedHashSet<>();
+
+    static void markPending(PlayerDataComponentImpl component) {
+        PENDING.add(component);
+    }
+
+    // Called at the end of every server tick
+    public static void flush() {
+        if (PENDING.isEmpty()) return;
+
+        List<PlayerDataComponentImpl> components = new ArrayList<>(PENDING);
+        PENDING.clear();
+        for (PlayerDataComponentImpl component : components) {
+            component.flushSync();
+        }
+    }
+
+    // The sync rule changed: send every client all its positions, or none of them
+    public static void resyncAll(MinecraftServer server) {
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (ModComponents.PLAYER_DATA.get(player) instanceof PlayerDataComponentImpl component) {
+                component.markFullSync();
+            }
+        }
+    }
+
+    public static void clear() {
+        PENDING.clear();
+    }
+}
@@ -0,0 +1,292 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Position store behind both components, laid out as parallel arrays.
+ * <p>
+ * Each position lives in a slot: its id in {@code ids}, coordinates and rotation in
+ * primitive arrays, and its dimension as an index into a small palette. An
+ * open-addressing table maps ids to slots. Removing a position moves the last slot
+ * into the gap, so slots stay packed and iteration is a plain loop.
+ * <p>
+ * {@link #forEach} and {@link #asMap} read the arrays directly, nothing is copied.
+ * Not thread-safe.
+ */
+public class PositionTable {
+
+    public interface Visitor {
+        void visit(String id, RegistryKey<World> dimension, double x, double y, double z, float yaw, float pitch,
+                   boolean serverOnly);
+    }
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] zs = new double[INITIAL_CAPACITY];
+    private float[] yaws = new float[INITIAL_CAPACITY];
+    private float[] pitches = new float[INITIAL_CAPACITY];
+    private int[] dimensionIndices = new int[INITIAL_CAPACITY];
+    private boolean[] serverOnly = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<RegistryKey<World>> dimensions = new ArrayList<>();
+
+    // Slot + 1 for each id, 0 for empty buckets. Always at least twice the size, a power of two.
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+
+    private Map<String, PositionData> view;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public PositionData get(String id) {
+        int slot = find(id);
+        return slot < 0 ? null : toPositionData(slot);
+    }
+
+    public boolean contains(String id) {
+        return find(id) >= 0;
+    }
+
+    public boolean isServerOnly(String id) {
+        int slot = find(id);
+        return slot >= 0 && serverOnly[slot];
+    }
+
+    public void put(String id, PositionData position) {
+        put(id, position, false);
+    }
+
+    // Server-only positions are never synced to clients
+    public void put(String id, PositionData position, boolean serverOnly) {
+        int slot = find(id);
+        if (slot < 0) {
+            if (size == ids.length) {
+                grow();
+            }
+            slot = size++;
+            ids[slot] = id;
+            insertIntoIndex(id, slot);
+        }
+
+        xs[slot] = position.x();
+        ys[slot] = position.y();
+        zs[slot] = position.z();
+        yaws[slot] = position.yaw();
+        pitches[slot] = position.pitch();
+        dimensionIndices[slot] = dimensionIndex(position.dimension());
+        this.serverOnly[slot] = serverOnly;
+    }
+
+    public boolean remove(String id) {
+        int bucket = findBucket(id);
+        if (bucket < 0) return false;
+
+        int slot = index[bucket] - 1;
+        removeFromIndex(bucket);
+
+        // Move the last slot into the gap so the slots stay packed
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            zs[slot] = zs[last];
+            yaws[slot] = yaws[last];
+            pitches[slot] = pitches[last];
+            dimensionIndices[slot] = dimensionIndices[last];
+            serverOnly[slot] = serverOnly[last];
+            index[findBucket(ids[slot])] = slot + 1;
+        }
+        ids[last] = null;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(ids, 0, size, null);
+        Arrays.fill(index, 0);
+        dimensions.clear();
+        size = 0;
+    }
+
+    // Replaces this table's contents with a copy of other's, array by array
+    public void copyFrom(PositionTable other) {
+        int capacity = other.ids.length;
+        ids = Arrays.copyOf(other.ids, capacity);
+        xs = Arrays.copyOf(other.xs, capacity);
+        ys = Arrays.copyOf(other.ys, capacity);
+        zs = Arrays.copyOf(other.zs, capacity);
+        yaws = Arrays.copyOf(other.yaws, capacity);
+        pitches = Arrays.copyOf(other.pitches, capacity);
+        dimensionIndices = Arrays.copyOf(other.dimensionIndices, capacity);
+        serverOnly = Arrays.copyOf(other.serverOnly, capacity);
+        index = other.index.clone();
+        size = other.size;
+
+        dimensions.clear();
+        dimensions.addAll(other.dimensions);
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < size; slot++) {
+            visitor.visit(ids[slot], dimensions.get(dimensionIndices[slot]),
+                    xs[slot], ys[slot], zs[slot], yaws[slot], pitches[slot], serverOnly[slot]);
+        }
+    }
+
+    /**
+     * Read-only map view backed by the table. Values are built as they are read, and
+     * the view follows later changes.
+     */
+    public Map<String, PositionData> asMap() {
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    private PositionData toPositionData(int slot) {
+        return new PositionData(dimensions.get(dimensionIndices[slot]),
+                xs[slot], ys[slot], zs[slot], yaws[slot], pitches[slot]);
+    }
+
+    private int dimensionIndex(RegistryKey<World> dimension) {
+        // Only a handful of dimensions, a linear scan beats hashing
+        for (int i = 0; i < dimensions.size(); i++) {
+            if (dimensions.get(i) == dimension || dimensions.get(i).equals(dimension)) return i;
+        }
+        dimensions.add(dimension);
+        return dimensions.size() - 1;
+    }
+
+    // Open addressing with linear probing
+
+    private int find(String id) {
+        int bucket = findBucket(id);
+        return bucket < 0 ? -1 : index[bucket] - 1;
+    }
+
+    private int findBucket(String id) {
+        int mask = index.length - 1;
+        for (int bucket = hash(id) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            if (ids[index[bucket] - 1].equals(id)) return bucket;
+        }
+        return -1;
+    }
+
+    private void insertIntoIndex(String id, int slot) {
+        int mask = index.length - 1;
+        int bucket = hash(id) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    // Backward shift deletion, so lookups never need tombstones
+    private void removeFromIndex(int bucket) {
+        int mask = index.length - 1;
+        int gap = bucket;
+        int next = (gap + 1) & mask;
+
+        while (index[next] != 0) {
+            int home = hash(ids[index[next] - 1]) & mask;
+            // Move the entry back if its home bucket is not between the gap and its position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                index[gap] = index[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[gap] = 0;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        yaws = Arrays.copyOf(yaws, capacity);
+        pitches = Arrays.copyOf(pitches, capacity);
+        dimensionIndices = Arrays.copyOf(dimensionIndices, capacity);
+        serverOnly = Arrays.copyOf(serverOnly, capacity);
+
+        index = new int[capacity * 2];
+        for (int slot = 0; slot < size; slot++) {
+            insertIntoIndex(ids[slot], slot);
+        }
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private class View extends AbstractMap<String, PositionData> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String id && PositionTable.this.contains(id);
+        }
+
+        @Override
+        public PositionData get(Object key) {
+            return key instanceof String id ? PositionTable.this.get(id) : null;
+        }
+
+        @Override
+        public Set<Entry<String, PositionData>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<String, PositionData>> iterator() {
+                    return new Iterator<>() {
+                        private int slot = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < size;
+                        }
+
+                        @Override
+                        public Entry<String, PositionData> next() {
+                            if (slot >= size) throw new NoSuchElementException();
+                            Entry<String, PositionData> entry = new SimpleImmutableEntry<>(ids[slot], toPositionData(slot));
+                            slot++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
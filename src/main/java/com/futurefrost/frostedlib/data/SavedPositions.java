@@ -0,0 +1,118 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.nbt.NbtCompound;
+
+import java.util.Map;
+
+/**
+ * The saved positions of one entity, decoded only when something asks for them.
+ * <p>
+ * Loading keeps the stored NBT as it is. Most entities are loaded and saved again
+ * without anyone reading their positions, so their NBT is written back untouched and
+ * never decoded. The first read or change decodes it and drops the stored copy.
+ * <p>
+ * The table is for the server thread. Every change also publishes an immutable
+ * {@link PositionSnapshot}, which {@link #snapshot()} hands to any thread.
+ */
+class SavedPositions {
+
+    private final PositionTable positions = new PositionTable();
+
+    // As loaded, until first access
+    private volatile NbtCompound encoded;
+
+    // Matches the table once decoded, replaced on every change
+    private volatile PositionSnapshot snapshot = PositionSnapshot.EMPTY;
+
+    PositionData get(String id) {
+        return decoded().get(id);
+    }
+
+    void put(String id, PositionData position) {
+        put(id, position, false);
+    }
+
+    void put(String id, PositionData position, boolean serverOnly) {
+        decoded().put(id, position, serverOnly);
+        snapshot = snapshot.with(id, position, serverOnly);
+    }
+
+    boolean isServerOnly(String id) {
+        return decoded().isServerOnly(id);
+    }
+
+    // Zero-copy walk over every position
+    void forEach(PositionTable.Visitor visitor) {
+        decoded().forEach(visitor);
+    }
+
+    boolean remove(String id) {
+        if (!decoded().remove(id)) {
+            return false;
+        }
+        snapshot = snapshot.without(id);
+        return true;
+    }
+
+    // Read-only, follows later changes
+    Map<String, PositionData> view() {
+        return decoded().asMap();
+    }
+
+    int size() {
+        return decoded().size();
+    }
+
+    // Safe from any thread, never decodes into the table
+    PositionSnapshot snapshot() {
+        // Read before the snapshot: decoding publishes the snapshot first, then drops this
+        NbtCompound pending = encoded;
+        return pending != null ? PositionSnapshot.decode(pending) : snapshot;
+    }
+
+    void clear() {
+        encoded = null;
+        positions.clear();
+        snapshot = PositionSnapshot.EMPTY;
+    }
+
+    boolean isEmpty() {
+        return encoded == null && positions.isEmpty();
+    }
+
+    // Copies without going through NBT. Still-encoded data and the snapshot are shared,
+    // neither is ever modified.
+    void copyFrom(SavedPositions other) {
+        positions.copyFrom(other.positions);
+        snapshot = other.snapshot;
+        encoded = other.encoded;
+    }
+
+    void readFromNbt(NbtCompound nbt) {
+        positions.clear();
+        snapshot = PositionSnapshot.EMPTY;
+        encoded = PositionCodec.extract(nbt);
+    }
+
+    void writeToNbt(NbtCompound nbt) {
+        NbtCompound pending = encoded;
+        if (pending != null) {
+            // Never touched since loading, pass it through as it was
+            for (String key : pending.getKeys()) {
+                nbt.put(key, pending.get(key));
+            }
+        } else if (!positions.isEmpty()) {
+            PositionCodec.write(nbt, positions);
+        }
+    }
+
+    private PositionTable decoded() {
+        NbtCompound pending = encoded;
+        if (pending != null) {
+            PositionCodec.read(pending, positions::put);
+            snapshot = PositionSnapshot.copyOf(positions);
+            encoded = null;
+        }
+        return positions;
+    }
+}
@@ -10,7 +10,12 @@ import dev.onyxstudios.cca.api.v3.component.ComponentRegistry;
 import dev.onyxstudios.cca.api.v3.entity.EntityComponentFactoryRegistry;
 import dev.onyxstudios.cca.api.v3.entity.EntityComponentInitializer;
 import dev.onyxstudios.cca.api.v3.entity.RespawnCopyStrategy;
+import net.minecraft.entity.AreaEffectCloudEntity;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.ExperienceOrbEntity;
+import net.minecraft.entity.LightningEntity;
+import net.minecraft.entity.TntEntity;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.Identifier;
 
 public class ModComponents implements EntityComponentInitializer {
@@ -21,7 +26,7 @@ public class ModComponents implements EntityComponentInitializer {
                     PlayerDataComponent.class
             );
 
-    // Entity data component (for all entities)
+    // Entity data component (for entities that can carry saved positions, see canHoldPositions)
     public static final ComponentKey<EntityDataComponent> ENTITY_DATA =
             ComponentRegistry.getOrCreate(
                     Identifier.of(FrostedLib.MOD_ID, "entity_data"),
@@ -33,12 +38,27 @@ public class ModComponents implements EntityComponentInitializer {
         // Register player data for players
         registry.registerForPlayers(
                 PLAYER_DATA,
-                player -> new PlayerDataComponentImpl(),
+                PlayerDataComponentImpl::new,
                 RespawnCopyStrategy.ALWAYS_COPY
         );
 
-        // Register entity data for ALL entities
-        registry.registerFor(Entity.class, ENTITY_DATA, entity -> new EntityDataComponentImpl());
+        // Register entity data for every entity class that can hold positions
+        registry.beginRegistration(Entity.class, ENTITY_DATA)
+                .filter(ModComponents::canHoldPositions)
+                .end(EntityDataComponentImpl::new);
+    }
+
+    // Players keep their positions in PLAYER_DATA. XP orbs, primed TNT, effect clouds and
+    // lightning live for a few seconds at most and make up much of a busy world, so they don't
+    // carry the component at all. Items, projectiles and falling blocks do: they can persist
+    // (tridents, dropped items) and powers may target them. Use ENTITY_DATA.maybeGet for
+    // entities of unknown type.
+    private static boolean canHoldPositions(Class<? extends Entity> entityClass) {
+        return !PlayerEntity.class.isAssignableFrom(entityClass) &&
+                !ExperienceOrbEntity.class.isAssignableFrom(entityClass) &&
+                !TntEntity.class.isAssignableFrom(entityClass) &&
+                !AreaEffectCloudEntity.class.isAssignableFrom(entityClass) &&
+                !LightningEntity.class.isAssignableFrom(entityClass);
     }
 
     public static void init() {
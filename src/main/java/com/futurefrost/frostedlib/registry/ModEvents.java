@@ -0,0 +1,62 @@
+package com.futurefrost.frostedlib.registry;
+
+import com.futurefrost.frostedlib.data.PositionJournal;
+import com.futurefrost.frostedlib.data.PositionStorage;
+import com.futurefrost.frostedlib.data.PositionSync;
+import com.futurefrost.frostedlib.util.AsyncStructureLocator;
+import com.futurefrost.frostedlib.util.PlatformTemplates;
+import com.futurefrost.frostedlib.util.ServerTaskScheduler;
+import com.futurefrost.frostedlib.util.TeleportCommitQueue;
+import com.futurefrost.frostedlib.util.TeleportQueue;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+public class ModEvents {
+
+    public static void init() {
+        // Drop structure searches for entities that left while the worker was running
+        ServerTickEvents.END_SERVER_TICK.register(server -> AsyncStructureLocator.tick());
+
+        // Admit queued teleports up to this tick's budget
+        ServerTickEvents.END_SERVER_TICK.register(TeleportQueue::tick);
+
+        // Delayed work, like teleports waiting out their warmup
+        ServerTickEvents.END_SERVER_TICK.register(ServerTaskScheduler::tick);
+
+        // One delta packet per player for all position changes made this tick
+        ServerTickEvents.END_SERVER_TICK.register(server -> PositionSync.flush());
+
+        // Last, so every teleport decided during this tick is committed together
+        ServerTickEvents.END_SERVER_TICK.register(server -> TeleportCommitQueue.flush());
+
+        // Custom platform shapes come from datapacks, reload them with the datapacks
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) ->
+                PlatformTemplates.clearCustom());
+
+        // Replay the position journal and pick the position store before any player or entity loads
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+            PositionJournal.open(server);
+            PositionStorage.open(server);
+        });
+
+        // Everything is saved by now, the journal can be emptied
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            PositionJournal.close();
+            PositionStorage.close();
+        });
+
+        // Entities killed or discarded leave the position store
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> PositionStorage.onEntityUnloaded(entity));
+
+        // Nothing in flight should outlive the server it was started for
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            AsyncStructureLocator.cancelAll();
+            TeleportQueue.clear();
+            ServerTaskScheduler.clear();
+            TeleportCommitQueue.clear();
+            PositionSync.clear();
+            PlatformTemplates.clearCustom();
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.futurefrost.frostedlib.registry;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import com.futurefrost.frostedlib.data.PositionSync;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleFactory;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleRegistry;
+import net.minecraft.world.GameRules;
+
+public class ModGameRules {
+
+    // Cost units of teleport requests admitted per tick, see TeleportQueue.Priority for the costs
+    public static final GameRules.Key<GameRules.IntRule> TELEPORT_BUDGET = GameRuleRegistry.register(
+            "frostedlibTeleportBudget", GameRules.Category.MISC, GameRuleFactory.createIntRule(32, 1));
+
+    // Tick times (in ms) where searches start scaling down, and where they are at their cheapest
+    public static final GameRules.Key<GameRules.IntRule> RELAXED_MSPT = GameRuleRegistry.register(
+            "frostedlibRelaxedMspt", GameRules.Category.MISC, GameRuleFactory.createIntRule(30, 1));
+    public static final GameRules.Key<GameRules.IntRule> STRAINED_MSPT = GameRuleRegistry.register(
+            "frostedlibStrainedMspt", GameRules.Category.MISC, GameRuleFactory.createIntRule(45, 1));
+
+    // Lowest share (in percent) of configured attempts and radii a search is scaled down to
+    public static final GameRules.Key<GameRules.IntRule> MIN_SEARCH_EFFORT = GameRuleRegistry.register(
+            "frostedlibMinSearchEffort", GameRules.Category.MISC, GameRuleFactory.createIntRule(25, 1, 100));
+
+    // Whether saved positions are synced to their player's client at all. Clients get
+    // their full list again, or an empty one, whenever it changes.
+    public static final GameRules.Key<GameRules.BooleanRule> SYNC_POSITIONS = GameRuleRegistry.register(
+            "frostedlibSyncPositions", GameRules.Category.MISC,
+            GameRuleFactory.createBooleanRule(true, (server, rule) -> PositionSync.resyncAll(server)));
+
+    // Whether position changes are also appended to a crash-safe journal, see PositionJournal
+    public static final GameRules.Key<GameRules.BooleanRule> JOURNAL_POSITIONS = GameRuleRegistry.register(
+            "frostedlibJournalPositions", GameRules.Category.MISC, GameRuleFactory.createBooleanRule(false));
+
+    // Whether saved positions are also kept in a queryable database, read when the server starts
+    public static final GameRules.Key<GameRules.BooleanRule> POSITION_DATABASE = GameRuleRegistry.register(
+            "frostedlibPositionDatabase", GameRules.Category.MISC, GameRuleFactory.createBooleanRule(false));
+
+    public static void init() {
+        // Rules are registered when this class loads
+        FrostedLib.LOGGER.info("Registered FrostedLib game rules");
+    }
+}
@@ -0,0 +1,387 @@
+package com.futurefrost.frostedlib.util;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.entry.RegistryEntryList;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.structure.StructureTemplateManager;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.HeightLimitView;
+import net.minecraft.world.World;
+import net.minecraft.world.gen.chunk.ChunkGenerator;
+import net.minecraft.world.gen.chunk.placement.ConcentricRingsStructurePlacement;
+import net.minecraft.world.gen.chunk.placement.RandomSpreadStructurePlacement;
+import net.minecraft.world.gen.chunk.placement.StructurePlacement;
+import net.minecraft.world.gen.chunk.placement.StructurePlacementCalculator;
+import net.minecraft.world.gen.noise.NoiseConfig;
+import net.minecraft.world.gen.structure.Structure;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Locates structure start candidates off the server thread.
+ * <p>
+ * The worker runs the checks vanilla runs before generating a start: the placement, then
+ * the structure's own start position and the biome there. Those only need the seed, the
+ * noise and the biome source, so it never reads or generates chunks. Chunks generated
+ * before (or by another version) may still differ, so callers verify candidates on the
+ * server thread.
+ * <p>
+ * Identical searches started while one is still running share a single job: same world,
+ * structures, radius and skip_referenced flag, with centers in the same region. Each
+ * caller gets the shared candidates re-sorted around its own center, and the job is
+ * only cancelled once every caller has cancelled.
+ */
+public class AsyncStructureLocator {
+
+    // How many candidates the worker hands back for verification on the server thread
+    private static final int MAX_CANDIDATES = 8;
+
+    // Searches whose centers fall in the same square of 2^REGION_SHIFT chunks can share a job
+    private static final int REGION_SHIFT = 3;
+
+    // Tasks still running; only touched on the server thread
+    private static final Set<LocateTask> PENDING = new HashSet<>();
+
+    // Running jobs by search key; only touched on the server thread
+    private static final Map<JobKey, LocateJob> JOBS = new HashMap<>();
+
+    // Structure starts already handed out with skip_referenced, per world and structure.
+    // Only for the current session: cancelAll clears it whenever the server stops, after
+    // that the structure's reference count is what keeps it from being handed out again.
+    private static final Map<DiscoveredKey, Set<Long>> DISCOVERED = new ConcurrentHashMap<>();
+
+    public record Candidate(ChunkPos startChunk, RegistryEntry<Structure> structure, double distanceSq) {
+    }
+
+    private record PlacementTarget(RegistryEntry<Structure> structure, StructurePlacement placement) {
+    }
+
+    private record DiscoveredKey(RegistryKey<World> world, RegistryKey<Structure> structure) {
+    }
+
+    // Everything the worker needs, captured on the server thread
+    private record LocateRequest(StructurePlacementCalculator calculator, DynamicRegistryManager registryManager,
+                                 ChunkGenerator chunkGenerator, NoiseConfig noiseConfig,
+                                 StructureTemplateManager templateManager, HeightLimitView heightLimits,
+                                 List<PlacementTarget> targets, int centerChunkX, int centerChunkZ, int radius,
+                                 Map<RegistryKey<Structure>, Set<Long>> skipped) {
+    }
+
+    private record JobKey(RegistryKey<World> world, List<RegistryKey<Structure>> structures, int regionX,
+                          int regionZ, int radius, boolean skipReferenced) {
+    }
+
+    // One worker search, shared by every task with the same key
+    private static final class LocateJob {
+        private final JobKey key;
+        private final CompletableFuture<List<Candidate>> future = new CompletableFuture<>();
+        private volatile boolean cancelled;
+        private int waiters;
+
+        private LocateJob(JobKey key) {
+            this.key = key;
+        }
+
+        private void release() {
+            if (--waiters > 0) return;
+
+            cancelled = true;
+            future.cancel(false);
+            JOBS.remove(key, this);
+        }
+    }
+
+    public static final class LocateTask {
+        private final Entity entity;
+        private final RegistryKey<World> originWorld;
+        private final LocateJob job;
+        private final SearchBudget budget;
+        private final CompletableFuture<List<Candidate>> future;
+        private volatile boolean cancelled;
+        private boolean released;
+
+        private LocateTask(Entity entity, LocateJob job, SearchBudget budget, int centerChunkX, int centerChunkZ) {
+            this.entity = entity;
+            this.originWorld = entity.getWorld().getRegistryKey();
+            this.job = job;
+            this.budget = budget;
+            this.future = job.future.thenApply(candidates -> sortAround(candidates, centerChunkX, centerChunkZ));
+            job.waiters++;
+        }
+
+        public CompletableFuture<List<Candidate>> future() {
+            return future;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            future.cancel(false);
+            release();
+        }
+
+        // Out of time: hand back no candidates and let the caller report the budget
+        private void expire() {
+            future.complete(List.of());
+            release();
+        }
+
+        private void release() {
+            if (released) return;
+
+            released = true;
+            job.release();
+        }
+
+        // The requesting entity was removed or moved to another world
+        private boolean hasEntityLeft() {
+            return entity.isRemoved() || entity.getWorld().getRegistryKey() != originWorld;
+        }
+    }
+
+    /**
+     * Starts an off-thread search for starts of the given structures around {@code center}.
+     * Must be called on the server thread. The returned task's future completes on a worker
+     * thread with candidates sorted by distance, is cancelled if the entity leaves, or
+     * completes with no candidates once the budget's deadline passes.
+     */
+    public static LocateTask locate(ServerWorld world, Entity entity, RegistryEntryList<Structure> structures,
+                                    BlockPos center, int radius, boolean skipReferenced, SearchBudget budget) {
+        JobKey key = createKey(world, structures, center, radius, skipReferenced);
+        LocateJob job = JOBS.get(key);
+
+        // Finished jobs aren't joined, their skip_referenced view may be out of date
+        if (job == null || job.future.isDone()) {
+            job = startJob(key, createRequest(world, structures, center, radius, skipReferenced));
+        }
+
+        LocateTask task = new LocateTask(entity, job, budget, center.getX() >> 4, center.getZ() >> 4);
+        PENDING.add(task);
+        return task;
+    }
+
+    private static LocateJob startJob(JobKey key, LocateRequest request) {
+        LocateJob job = new LocateJob(key);
+        JOBS.put(key, job);
+
+        SearchExecutor.get().execute(() -> {
+            if (job.cancelled) return;
+            try {
+                job.future.complete(findCandidates(request, () -> job.cancelled));
+            } catch (Throwable t) {
+                job.future.completeExceptionally(t);
+            }
+        });
+
+        return job;
+    }
+
+    public static void markDiscovered(ServerWorld world, RegistryEntry<Structure> structure, ChunkPos startChunk) {
+        structure.getKey().ifPresent(structureKey ->
+                DISCOVERED.computeIfAbsent(new DiscoveredKey(world.getRegistryKey(), structureKey),
+                        key -> ConcurrentHashMap.newKeySet()).add(startChunk.toLong()));
+    }
+
+    // Called at the end of every server tick
+    public static void tick() {
+        if (!JOBS.isEmpty()) {
+            JOBS.values().removeIf(job -> job.future.isDone());
+        }
+        if (PENDING.isEmpty()) return;
+
+        Iterator<LocateTask> iterator = PENDING.iterator();
+        while (iterator.hasNext()) {
+            LocateTask task = iterator.next();
+            if (task.future.isDone()) {
+                iterator.remove();
+            } else if (task.hasEntityLeft()) {
+                task.cancel();
+                iterator.remove();
+            } else if (task.budget.isExhausted()) {
+                task.expire();
+                iterator.remove();
+            }
+        }
+    }
+
+    public static void cancelAll() {
+        PENDING.forEach(LocateTask::cancel);
+        PENDING.clear();
+        JOBS.values().forEach(job -> job.cancelled = true);
+        JOBS.clear();
+        DISCOVERED.clear();
+    }
+
+    private static JobKey createKey(ServerWorld world, RegistryEntryList<Structure> structures, BlockPos center,
+                                    int radius, boolean skipReferenced) {
+        List<RegistryKey<Structure>> structureKeys = new ArrayList<>(structures.size());
+        for (RegistryEntry<Structure> structure : structures) {
+            structure.getKey().ifPresent(structureKeys::add);
+        }
+
+        return new JobKey(world.getRegistryKey(), structureKeys,
+                center.getX() >> 4 >> REGION_SHIFT, center.getZ() >> 4 >> REGION_SHIFT,
+                radius, skipReferenced);
+    }
+
+    // Shared jobs measure distance from the first caller's center, re-sort for this one
+    private static List<Candidate> sortAround(List<Candidate> candidates, int centerChunkX, int centerChunkZ) {
+        List<Candidate> sorted = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            double dx = candidate.startChunk().x - centerChunkX;
+            double dz = candidate.startChunk().z - centerChunkZ;
+            sorted.add(new Candidate(candidate.startChunk(), candidate.structure(), dx * dx + dz * dz));
+        }
+
+        sorted.sort(Comparator.comparingDouble(Candidate::distanceSq));
+        return sorted;
+    }
+
+    private static LocateRequest createRequest(ServerWorld world, RegistryEntryList<Structure> structures,
+                                               BlockPos center, int radius, boolean skipReferenced) {
+        ServerChunkManager chunkManager = world.getChunkManager();
+        StructurePlacementCalculator calculator = chunkManager.getStructurePlacementCalculator();
+
+        List<PlacementTarget> targets = new ArrayList<>();
+        for (RegistryEntry<Structure> structure : structures) {
+            for (StructurePlacement placement : calculator.getPlacements(structure)) {
+                targets.add(new PlacementTarget(structure, placement));
+            }
+        }
+
+        Map<RegistryKey<Structure>, Set<Long>> skipped = new HashMap<>();
+        if (skipReferenced) {
+            for (RegistryEntry<Structure> structure : structures) {
+                structure.getKey().ifPresent(structureKey -> {
+                    Set<Long> discovered = DISCOVERED.get(new DiscoveredKey(world.getRegistryKey(), structureKey));
+                    if (discovered != null) skipped.put(structureKey, discovered);
+                });
+            }
+        }
+
+        // The world only serves as the height limits, which never change
+        return new LocateRequest(
+                calculator,
+                world.getRegistryManager(),
+                chunkManager.getChunkGenerator(),
+                chunkManager.getNoiseConfig(),
+                world.getStructureTemplateManager(),
+                world,
+                targets,
+                center.getX() >> 4,
+                center.getZ() >> 4,
+                radius,
+                skipped
+        );
+    }
+
+    private static List<Candidate> findCandidates(LocateRequest request, BooleanSupplier stopped) {
+        List<Candidate> candidates = new ArrayList<>();
+
+        // Concentric ring placements (strongholds) are precomputed, so every position is a candidate
+        for (PlacementTarget target : request.targets()) {
+            if (target.placement() instanceof ConcentricRingsStructurePlacement rings) {
+                List<ChunkPos> positions = request.calculator().getPlacementPositions(rings);
+                if (positions == null) continue;
+
+                for (ChunkPos pos : positions) {
+                    addCandidate(request, target, pos, candidates, false);
+                }
+            }
+        }
+
+        // Random spread placements are walked ring by ring around the center
+        int firstHitRing = -1;
+        for (int ring = 0; ring <= request.radius(); ring++) {
+            if (stopped.getAsBoolean()) return List.of();
+
+            for (PlacementTarget target : request.targets()) {
+                if (target.placement() instanceof RandomSpreadStructurePlacement spread) {
+                    collectRing(request, target, spread, ring, candidates);
+                }
+            }
+
+            if (!candidates.isEmpty() && firstHitRing == -1) {
+                firstHitRing = ring;
+            }
+
+            // One extra ring catches closer starts near the corners of the previous square ring
+            if (firstHitRing != -1 && (ring > firstHitRing || candidates.size() >= MAX_CANDIDATES)) {
+                break;
+            }
+        }
+
+        candidates.sort(Comparator.comparingDouble(Candidate::distanceSq));
+        return candidates.size() > MAX_CANDIDATES ? List.copyOf(candidates.subList(0, MAX_CANDIDATES)) : candidates;
+    }
+
+    private static void collectRing(LocateRequest request, PlacementTarget target,
+                                    RandomSpreadStructurePlacement placement, int ring, List<Candidate> candidates) {
+        int spacing = placement.getSpacing();
+        long seed = request.calculator().getStructureSeed();
+
+        for (int dx = -ring; dx <= ring; dx++) {
+            boolean edgeX = dx == -ring || dx == ring;
+            for (int dz = -ring; dz <= ring; dz++) {
+                boolean edgeZ = dz == -ring || dz == ring;
+                if (!edgeX && !edgeZ) continue; // Only the perimeter of this ring
+
+                int chunkX = request.centerChunkX() + spacing * dx;
+                int chunkZ = request.centerChunkZ() + spacing * dz;
+                ChunkPos startChunk = placement.getStartChunk(seed, chunkX, chunkZ);
+
+                addCandidate(request, target, startChunk, candidates, true);
+            }
+        }
+    }
+
+    private static void addCandidate(LocateRequest request, PlacementTarget target, ChunkPos startChunk,
+                                     List<Candidate> candidates, boolean checkPlacement) {
+        Set<Long> skipped = target.structure().getKey().map(request.skipped()::get).orElse(null);
+        if (skipped != null && skipped.contains(startChunk.toLong())) return;
+
+        if (checkPlacement && !target.placement().shouldGenerate(request.calculator(), startChunk.x, startChunk.z)) {
+            return;
+        }
+
+        double dx = startChunk.x - request.centerChunkX();
+        double dz = startChunk.z - request.centerChunkZ();
+        double distanceSq = dx * dx + dz * dz;
+
+        for (Candidate existing : candidates) {
+            if (existing.startChunk().equals(startChunk)) return;
+        }
+
+        if (!canStartAt(request, target.structure().value(), startChunk)) return;
+
+        candidates.add(new Candidate(startChunk, target.structure(), distanceSq));
+    }
+
+    // Same check as vanilla's StructureLocator for chunks that aren't generated yet: the start
+    // position the structure would pick (surface, fixed depth, jigsaw start...) and the biome there
+    private static boolean canStartAt(LocateRequest request, Structure structure, ChunkPos startChunk) {
+        Structure.Context context = new Structure.Context(
+                request.registryManager(),
+                request.chunkGenerator(),
+                request.chunkGenerator().getBiomeSource(),
+                request.noiseConfig(),
+                request.templateManager(),
+                request.calculator().getStructureSeed(),
+                startChunk,
+                request.heightLimits(),
+                structure.getValidBiomes()::contains
+        );
+        return structure.getValidStructurePosition(context).isPresent();
+    }
+}
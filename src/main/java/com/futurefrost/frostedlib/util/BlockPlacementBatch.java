@@ -0,0 +1,174 @@
+package com.futurefrost.frostedlib.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.chunk.light.LightingProvider;
+import net.minecraft.world.poi.PointOfInterestTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects block placements and writes them section by section.
+ * <p>
+ * Blocks are written straight into the chunk sections without neighbour or shape
+ * updates. Each touched section gets a single {@link ChunkDeltaUpdateS2CPacket},
+ * and light checks are queued per chunk once all of its sections are written.
+ * Block entities are never written this way; those placements fall back to a
+ * regular {@code setBlockState} with minimal flags.
+ */
+public class BlockPlacementBatch {
+
+    private static final Heightmap.Type[] TRACKED_HEIGHTMAPS = {
+            Heightmap.Type.MOTION_BLOCKING,
+            Heightmap.Type.MOTION_BLOCKING_NO_LEAVES,
+            Heightmap.Type.OCEAN_FLOOR,
+            Heightmap.Type.WORLD_SURFACE
+    };
+
+    // Flags for the block entity fallback: sync to clients, but no neighbour or shape updates
+    private static final int FALLBACK_FLAGS = Block.NOTIFY_LISTENERS | Block.FORCE_STATE;
+
+    private final ServerWorld world;
+
+    // Chunk -> section -> pending changes, in insertion order
+    private final Long2ObjectMap<Long2ObjectMap<SectionChanges>> chunks = new Long2ObjectLinkedOpenHashMap<>();
+
+    private static class SectionChanges {
+        private final ShortArrayList positions = new ShortArrayList();
+        private final List<BlockState> states = new ArrayList<>();
+    }
+
+    public BlockPlacementBatch(ServerWorld world) {
+        this.world = world;
+    }
+
+    public void set(int x, int y, int z, BlockState state) {
+        if (world.isOutOfHeightLimit(y)) return;
+
+        int sectionX = ChunkSectionPos.getSectionCoord(x);
+        int sectionY = ChunkSectionPos.getSectionCoord(y);
+        int sectionZ = ChunkSectionPos.getSectionCoord(z);
+
+        SectionChanges changes = chunks
+                .computeIfAbsent(ChunkPos.toLong(sectionX, sectionZ), key -> new Long2ObjectLinkedOpenHashMap<>())
+                .computeIfAbsent(ChunkSectionPos.asLong(sectionX, sectionY, sectionZ), key -> new SectionChanges());
+
+        changes.positions.add(packLocal(x, y, z));
+        changes.states.add(state);
+    }
+
+    /**
+     * Writes every pending placement and clears the batch.
+     *
+     * @return the number of blocks that actually changed
+     */
+    public int apply() {
+        int changed = 0;
+        LightingProvider lightingProvider = world.getChunkManager().getLightingProvider();
+
+        for (Long2ObjectMap.Entry<Long2ObjectMap<SectionChanges>> chunkEntry : chunks.long2ObjectEntrySet()) {
+            ChunkPos chunkPos = new ChunkPos(chunkEntry.getLongKey());
+            WorldChunk chunk = world.getChunk(chunkPos.x, chunkPos.z);
+            List<BlockPos> lightChecks = new ArrayList<>();
+
+            for (Long2ObjectMap.Entry<SectionChanges> sectionEntry : chunkEntry.getValue().long2ObjectEntrySet()) {
+                ChunkSectionPos sectionPos = ChunkSectionPos.from(sectionEntry.getLongKey());
+                changed += applySection(chunk, sectionPos, sectionEntry.getValue(), lightingProvider, lightChecks);
+            }
+
+            // Queue lighting once for the whole chunk, after all of its sections are written
+            for (BlockPos pos : lightChecks) {
+                lightingProvider.checkBlock(pos);
+            }
+        }
+
+        chunks.clear();
+        return changed;
+    }
+
+    private int applySection(WorldChunk chunk, ChunkSectionPos sectionPos, SectionChanges changes,
+                             LightingProvider lightingProvider, List<BlockPos> lightChecks) {
+        ChunkSection section = chunk.getSection(world.sectionCoordToIndex(sectionPos.getSectionY()));
+        boolean wasEmpty = section.isEmpty();
+        ShortSet changedPositions = new ShortOpenHashSet();
+
+        for (int i = 0; i < changes.positions.size(); i++) {
+            short packed = changes.positions.getShort(i);
+            BlockState state = changes.states.get(i);
+
+            int localX = ChunkSectionPos.unpackLocalX(packed);
+            int localY = ChunkSectionPos.unpackLocalY(packed);
+            int localZ = ChunkSectionPos.unpackLocalZ(packed);
+            BlockPos pos = sectionPos.getMinPos().add(localX, localY, localZ);
+
+            BlockState oldState = section.getBlockState(localX, localY, localZ);
+            if (oldState == state) continue;
+
+            // Block entities need the full vanilla path to be created and removed properly
+            if (oldState.hasBlockEntity() || state.hasBlockEntity()) {
+                world.setBlockState(pos, state, FALLBACK_FLAGS);
+                continue;
+            }
+
+            section.setBlockState(localX, localY, localZ, state, false);
+
+            for (Heightmap.Type type : TRACKED_HEIGHTMAPS) {
+                chunk.getHeightmap(type).trackUpdate(localX, pos.getY(), localZ, state);
+            }
+
+            if (LightingProvider.needsLightUpdate(chunk, pos, oldState, state)) {
+                chunk.getChunkSkyLight().isSkyLightAccessible(chunk, localX, pos.getY(), localZ);
+                lightChecks.add(pos);
+            }
+
+            // Keep beds, workstations and other points of interest in sync
+            if (PointOfInterestTypes.getTypeForState(oldState).isPresent() ||
+                    PointOfInterestTypes.getTypeForState(state).isPresent()) {
+                world.onBlockChanged(pos, oldState, state);
+            }
+
+            changedPositions.add(packed);
+        }
+
+        if (changedPositions.isEmpty()) {
+            return 0;
+        }
+
+        boolean isEmpty = section.isEmpty();
+        if (wasEmpty != isEmpty) {
+            lightingProvider.setSectionStatus(sectionPos, isEmpty);
+        }
+
+        chunk.setNeedsSaving(true);
+
+        // One delta packet for the whole section instead of one block update per block
+        ChunkDeltaUpdateS2CPacket packet = new ChunkDeltaUpdateS2CPacket(sectionPos, changedPositions, section);
+        List<ServerPlayerEntity> watchers = world.getChunkManager().threadedAnvilChunkStorage
+                .getPlayersWatchingChunk(chunk.getPos(), false);
+        for (ServerPlayerEntity player : watchers) {
+            player.networkHandler.sendPacket(packet);
+        }
+
+        return changedPositions.size();
+    }
+
+    // Same layout as ChunkSectionPos.packLocal, without allocating a BlockPos
+    private static short packLocal(int x, int y, int z) {
+        return (short) ((x & 15) << 8 | (z & 15) << 4 | (y & 15));
+    }
+}
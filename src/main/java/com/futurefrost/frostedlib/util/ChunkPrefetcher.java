@@ -0,0 +1,106 @@
+package com.futurefrost.frostedlib.util;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the area around a teleport destination ahead of the teleport with a short-lived
+ * chunk ticket, so the chunks are generated and loaded over the warmup instead of all
+ * in the tick the entity arrives.
+ */
+public class ChunkPrefetcher {
+
+    public static final int MAX_WARMUP_TICKS = 100;
+
+    // How long a destination may take to load before the teleport gives up
+    public static final int MAX_LOAD_TICKS = 200;
+
+    // Expires on its own shortly after the longest warmup, in case the teleport never happens
+    public static final ChunkTicketType<ChunkPos> WARMUP = ChunkTicketType.create(
+            "frostedlib_warmup", Comparator.comparingLong(ChunkPos::toLong), MAX_WARMUP_TICKS + 20);
+
+    public static final ChunkTicketType<ChunkPos> DESTINATION = ChunkTicketType.create(
+            "frostedlib_destination", Comparator.comparingLong(ChunkPos::toLong), MAX_LOAD_TICKS + 20);
+
+    // Non-player entities only need the chunks right around them
+    private static final int ENTITY_RADIUS = 2;
+
+    // The destination chunk and its neighbours, enough for the respawn checks around a bed
+    private static final int DESTINATION_RADIUS = 1;
+
+    public record Prefetch(ServerWorld world, ChunkTicketType<ChunkPos> type, ChunkPos center, int radius) {
+
+        public boolean isLoaded() {
+            for (int x = center.x - radius; x <= center.x + radius; x++) {
+                for (int z = center.z - radius; z <= center.z + radius; z++) {
+                    if (!world.getChunkManager().isChunkLoaded(x, z)) return false;
+                }
+            }
+            return true;
+        }
+
+        public void release() {
+            world.getChunkManager().removeTicket(type, center, radius, center);
+        }
+    }
+
+    public static Prefetch prefetch(ServerWorld world, Vec3d position, Entity entity) {
+        ChunkPos center = new ChunkPos(
+                (int) Math.floor(position.x) >> 4,
+                (int) Math.floor(position.z) >> 4);
+
+        // Players get what they will see on arrival
+        int radius = entity instanceof ServerPlayerEntity ?
+                world.getServer().getPlayerManager().getViewDistance() :
+                ENTITY_RADIUS;
+
+        world.getChunkManager().addTicket(WARMUP, center, radius, center);
+        return new Prefetch(world, WARMUP, center, radius);
+    }
+
+    /**
+     * Asks for the chunks around a destination without loading them on the spot.
+     * <p>
+     * The future completes on the server thread once they are loaded, right away if they
+     * already are. The ticket is still held then, so the caller reads the chunks and
+     * releases it. Cancelling the future releases the ticket, and it fails with a
+     * {@link TimeoutException} if the chunks take longer than {@link #MAX_LOAD_TICKS}.
+     */
+    public static CompletableFuture<Prefetch> load(ServerWorld world, BlockPos pos) {
+        return load(world, pos, DESTINATION_RADIUS);
+    }
+
+    // Same, for the chunks within radius of pos's chunk; 0 loads only that chunk
+    public static CompletableFuture<Prefetch> load(ServerWorld world, BlockPos pos, int radius) {
+        ChunkPos center = new ChunkPos(pos);
+        world.getChunkManager().addTicket(DESTINATION, center, radius, center);
+
+        CompletableFuture<Prefetch> future = new CompletableFuture<>();
+        poll(new Prefetch(world, DESTINATION, center, radius), future, MAX_LOAD_TICKS);
+        return future;
+    }
+
+    private static void poll(Prefetch prefetch, CompletableFuture<Prefetch> future, int ticksLeft) {
+        if (future.isDone()) {
+            prefetch.release(); // Cancelled while waiting
+        } else if (prefetch.isLoaded()) {
+            future.complete(prefetch);
+        } else if (ticksLeft <= 0) {
+            prefetch.release();
+            future.completeExceptionally(new TimeoutException(
+                    "Chunk " + prefetch.center() + " did not load within " + MAX_LOAD_TICKS + " ticks"));
+        } else {
+            ServerTaskScheduler.schedule(prefetch.world().getServer(), 1,
+                    () -> poll(prefetch, future, ticksLeft - 1));
+        }
+    }
+}
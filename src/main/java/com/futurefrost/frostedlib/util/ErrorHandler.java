@@ -11,6 +11,9 @@ import net.minecraft.registry.RegistryKey;
 
 public class ErrorHandler {
 
+    // Stateless, shared by every action
+    public static final ErrorHandler INSTANCE = new ErrorHandler();
+
     public enum ErrorType {
         VALIDATION_ERROR,
         BIOME_NOT_FOUND,
@@ -78,6 +81,11 @@ public class ErrorHandler {
     }
 
     // Convenience methods
+    public void handleOutcome(SerializableData.Instance data, Entity entity, TeleportOutcome outcome,
+                              RegistryKey<World> targetDimension) {
+        handleError(data, entity, outcome.errorType(), outcome.detail(), outcome.position(), targetDimension);
+    }
+
     public void handleDimensionNotFound(SerializableData.Instance data, Entity entity, RegistryKey<World> dimensionKey) {
         handleError(data, entity, ErrorType.DIMENSION_NOT_FOUND,
                 "Target dimension not found or not loaded: " + dimensionKey.getValue(),
@@ -91,6 +99,13 @@ public class ErrorHandler {
                 attemptedPos, targetDimension);
     }
 
+    // The search gave up because max_search_millis or max_chunk_loads ran out
+    public void handleBudgetExceeded(SerializableData.Instance data, Entity entity, SearchBudget budget,
+                                     Vec3d attemptedPos, RegistryKey<World> targetDimension) {
+        handleError(data, entity, ErrorType.NO_SAFE_POSITION, budget.describeExceeded(),
+                attemptedPos, targetDimension);
+    }
+
     public void handleTeleportFailed(SerializableData.Instance data, Entity entity,
                                      Vec3d position, RegistryKey<World> targetDimension) {
         handleError(data, entity, ErrorType.TELEPORT_FAILED,
@@ -103,18 +118,4 @@ public class ErrorHandler {
         handleError(data, entity, ErrorType.RUNTIME_EXCEPTION,
                 "Unexpected error: " + e.getMessage(), null, null);
     }
-
-    public void handleValidationError(SerializableData.Instance data, Entity entity, String message) {
-        handleError(data, entity, ErrorType.VALIDATION_ERROR, message, null, null);
-    }
-
-    public void handleBiomeNotFound(SerializableData.Instance data, Entity entity, String biomeId) {
-        handleError(data, entity, ErrorType.BIOME_NOT_FOUND,
-                "Could not find biome: " + biomeId, null, null);
-    }
-
-    public void handleStructureNotFound(SerializableData.Instance data, Entity entity, String structureId) {
-        handleError(data, entity, ErrorType.STRUCTURE_NOT_FOUND,
-                "Could not find structure: " + structureId, null, null);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.futurefrost.frostedlib.util;
+
+import io.github.apace100.apoli.power.factory.condition.ConditionFactory;
+import io.github.apace100.calio.data.SerializableData;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.predicate.entity.EntityPredicates;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Pair;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spreads a group around the spot one search found for its leader, so a whole group
+ * costs one biome/structure/safe-position search instead of one each.
+ * <p>
+ * Members get distinct columns: an occupancy set holds every column already taken, and
+ * each member walks square rings outward from the leader's spot, up to
+ * {@code group_spread} blocks, until it finds a free column with a safe spot near the
+ * leader's height.
+ */
+public class GroupPlacer {
+
+    // Stateless, shared by every action
+    public static final GroupPlacer INSTANCE = new GroupPlacer();
+
+    // How far above or below the leader's feet a member may land
+    private static final int MAX_HEIGHT_DIFFERENCE = 3;
+
+    public record Placement(Entity entity, Vec3d position) {
+    }
+
+    /**
+     * The entities within {@code group_radius} of the leader that go along, leader
+     * excluded. Without any condition only living entities are taken. With bring_mount
+     * a whole vehicle stack moves as one, so only one member per stack is returned.
+     */
+    public List<Entity> collectMembers(SerializableData.Instance data, Entity leader) {
+        // Actions from other mods may build their data without the group fields
+        if (!data.isPresent("group_radius")) return List.of();
+        double radius = data.getDouble("group_radius");
+        if (radius <= 0) return List.of();
+
+        ConditionFactory<Pair<Entity, Entity>>.Instance bientityCondition = data.get("group_condition");
+        ConditionFactory<Entity>.Instance entityCondition = data.get("group_entity_condition");
+        boolean bringMount = data.getBoolean("bring_mount");
+
+        double radiusSquared = radius * radius;
+        List<Entity> nearby = leader.getWorld().getOtherEntities(leader, leader.getBoundingBox().expand(radius),
+                entity -> EntityPredicates.EXCEPT_SPECTATOR.test(entity) &&
+                        entity.squaredDistanceTo(leader) <= radiusSquared);
+
+        Set<Entity> stacks = Collections.newSetFromMap(new IdentityHashMap<>());
+        stacks.add(bringMount ? leader.getRootVehicle() : leader);
+
+        List<Entity> members = new ArrayList<>();
+        for (Entity entity : nearby) {
+            if (bientityCondition == null && entityCondition == null && !(entity instanceof LivingEntity)) continue;
+            if (bientityCondition != null && !bientityCondition.test(new Pair<>(leader, entity))) continue;
+            if (entityCondition != null && !entityCondition.test(entity)) continue;
+
+            // Already going along with the leader or another member
+            if (!stacks.add(bringMount ? entity.getRootVehicle() : entity)) continue;
+
+            members.add(entity);
+        }
+        return members;
+    }
+
+    /**
+     * Finds a spot for each member around the leader's position, in member order. A
+     * member without a free safe spot in range gets a null position.
+     */
+    public List<Placement> place(SerializableData.Instance data, ServerWorld world, Vec3d leaderPosition,
+                                 List<Entity> members, SearchBudget budget) {
+        BlockPos center = BlockPos.ofFloored(leaderPosition);
+        int spread = Math.max(1, data.getInt("group_spread"));
+
+        LongSet occupied = new LongOpenHashSet();
+        occupied.add(columnKey(center.getX(), center.getZ()));
+
+        List<Placement> placements = new ArrayList<>(members.size());
+        for (Entity member : members) {
+            placements.add(new Placement(member, findFreeSpot(data, world, center, spread, occupied, budget)));
+        }
+        return placements;
+    }
+
+    private Vec3d findFreeSpot(SerializableData.Instance data, ServerWorld world, BlockPos center, int spread,
+                               LongSet occupied, SearchBudget budget) {
+        for (int ring = 1; ring <= spread; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    // Only the edge of the ring, the inside was covered by smaller rings
+                    if (Math.abs(dx) != ring && Math.abs(dz) != ring) continue;
+
+                    int x = center.getX() + dx;
+                    int z = center.getZ() + dz;
+                    if (occupied.contains(columnKey(x, z))) continue;
+
+                    if (!budget.tryColumn(world, x, z)) return null;
+
+                    Integer y = findSafeY(data, world, x, center.getY(), z);
+                    if (y != null) {
+                        occupied.add(columnKey(x, z));
+                        return Vec3d.ofBottomCenter(new BlockPos(x, y, z));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Closest safe height to the leader's, alternating above and below
+    private Integer findSafeY(SerializableData.Instance data, ServerWorld world, int x, int centerY, int z) {
+        for (int offset = 0; offset <= MAX_HEIGHT_DIFFERENCE; offset++) {
+            if (PositionFinder.INSTANCE.isPositionActuallySafe(data, world, new Vec3d(x, centerY + offset, z))) {
+                return centerY + offset;
+            }
+            if (offset > 0 &&
+                    PositionFinder.INSTANCE.isPositionActuallySafe(data, world, new Vec3d(x, centerY - offset, z))) {
+                return centerY - offset;
+            }
+        }
+        return null;
+    }
+
+    private static long columnKey(int x, int z) {
+        return BlockPos.asLong(x, 0, z);
+    }
+}
@@ -1,60 +1,96 @@
 package com.futurefrost.frostedlib.util;
 
 import com.futurefrost.frostedlib.FrostedLib;
-import com.futurefrost.frostedlib.util.TeleportHelper;
+import net.fabricmc.fabric.api.dimension.v1.FabricDimensions;
 import net.minecraft.entity.Entity;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkTicketType;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.TeleportTarget;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class MountHandler {
 
+    // Stateless, shared by every action
+    public static final MountHandler INSTANCE = new MountHandler();
+
+    // An entity in a vehicle stack and the vehicle it rides (null for the root)
+    private record Rider(Entity entity, Entity vehicle) {
+    }
+
+    /**
+     * Teleports the entity. With {@code bringMount}, the whole vehicle stack it is part of
+     * (root vehicle, every passenger and nested vehicle) goes along in one move.
+     */
     public boolean teleportWithMount(Entity entity, ServerWorld targetWorld,
                                      Vec3d position, boolean bringMount) {
         try {
-            Entity mount = bringMount ? entity.getVehicle() : null;
-
-            // Teleport mount first if applicable
-            if (bringMount && mount != null) {
-                mount.stopRiding();
-                mount.teleport(
-                        targetWorld,
-                        position.x,
-                        position.y,
-                        position.z,
-                        java.util.Set.of(),
-                        mount.getYaw(),
-                        mount.getPitch()
-                );
-            }
+            Entity root = bringMount ? entity.getRootVehicle() : entity;
 
-            // Teleport main entity
-            if (entity instanceof ServerPlayerEntity player) {
-                TeleportHelper.teleportPlayer(player, targetWorld, position, player.getYaw(), player.getPitch());
-            } else {
-                entity.teleport(
-                        targetWorld,
-                        position.x,
-                        position.y,
-                        position.z,
-                        java.util.Set.of(),
-                        entity.getYaw(),
-                        entity.getPitch()
-                );
+            if (root == entity && !(bringMount && entity.hasPassengers())) {
+                return TeleportHelper.teleportEntity(entity, targetWorld, position, entity.getYaw(), entity.getPitch());
             }
 
-            // Re-mount if applicable (for non-player entities)
-            if (bringMount && mount != null && !(entity instanceof ServerPlayerEntity)) {
-                targetWorld.getServer().execute(() -> {
-                    if (entity.isAlive() && mount.isAlive()) {
-                        mount.startRiding(entity, true);
-                    }
-                });
+            if (root.getWorld() == targetWorld) {
+                // Moves the root and repositions every passenger, nobody dismounts
+                root.requestTeleport(position.x, position.y, position.z);
+                return true;
             }
-            return true;
+
+            return teleportStackAcrossDimensions(root, targetWorld, position);
         } catch (Exception e) {
             FrostedLib.LOGGER.error("Teleportation failed", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private boolean teleportStackAcrossDimensions(Entity root, ServerWorld targetWorld, Vec3d position) {
+        // Vehicles come before their passengers, so each rider's vehicle has already arrived
+        List<Rider> stack = new ArrayList<>();
+        collectStack(root, null, stack);
+
+        // Prepare the destination once for the whole stack
+        ChunkPos chunkPos = new ChunkPos(BlockPos.ofFloored(position));
+        targetWorld.getChunkManager().addTicket(ChunkTicketType.POST_TELEPORT, chunkPos, 1, root.getId());
+        targetWorld.getChunk(chunkPos.x, chunkPos.z);
+
+        for (Rider rider : stack) {
+            rider.entity().stopRiding();
+        }
+
+        // Non-players are recreated in the new dimension, so remount the copies
+        Map<Entity, Entity> arrived = new IdentityHashMap<>();
+        for (Rider rider : stack) {
+            Entity original = rider.entity();
+            Entity moved = FabricDimensions.teleport(original, targetWorld,
+                    new TeleportTarget(position, original.getVelocity(), original.getYaw(), original.getPitch()));
+
+            if (moved == null) {
+                FrostedLib.LOGGER.warn("Could not move {} with its vehicle", original.getName().getString());
+                if (original == root) return false;
+                continue;
+            }
+            arrived.put(original, moved);
+
+            Entity vehicle = rider.vehicle() != null ? arrived.get(rider.vehicle()) : null;
+            if (vehicle != null) {
+                moved.startRiding(vehicle, true);
+            }
+        }
+        return true;
+    }
+
+    private void collectStack(Entity entity, Entity vehicle, List<Rider> stack) {
+        stack.add(new Rider(entity, vehicle));
+        for (Entity passenger : entity.getPassengerList()) {
+            collectStack(passenger, entity, stack);
+        }
+    }
+}
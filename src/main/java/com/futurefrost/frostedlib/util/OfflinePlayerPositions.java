@@ -0,0 +1,352 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import com.futurefrost.frostedlib.data.PlayerDataComponent;
+import com.futurefrost.frostedlib.data.PositionCodec;
+import com.futurefrost.frostedlib.data.PositionData;
+import com.futurefrost.frostedlib.data.PositionJournal;
+import com.futurefrost.frostedlib.data.PositionSnapshot;
+import com.futurefrost.frostedlib.data.PositionStorage;
+import com.futurefrost.frostedlib.data.PositionStore;
+import com.futurefrost.frostedlib.data.PositionTable;
+import com.futurefrost.frostedlib.registry.ModComponents;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.scanner.NbtScanQuery;
+import net.minecraft.nbt.scanner.SelectiveNbtCollector;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Util;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.world.World;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Finds or removes saved positions across every player, including players who are
+ * offline, by streaming through the {@code playerdata} folder on a worker thread.
+ * <p>
+ * Files are read one at a time, and only the FrostedLib component is decoded; the rest
+ * of each file is skipped as it is read. A file is fully read and written back only
+ * when positions are removed from it. Only the first {@link #MAX_EXAMPLES} matches are
+ * kept for reporting, so memory stays flat however many players there are.
+ * <p>
+ * Online players are handled through their components on the server thread, and their
+ * files are left alone. Files are edited on the server thread too, so a player can't log
+ * in or save halfway through an edit. One run at a time.
+ */
+public class OfflinePlayerPositions {
+
+    public interface Progress {
+        // Called on the worker thread
+        void update(int scanned, int total);
+    }
+
+    /**
+     * What a run found. {@code examples} holds the first matches only. {@code skipped}
+     * counts players whose files weren't edited because the position journal still has
+     * unreplayed changes for them, {@code online} those who logged in before their file
+     * was edited.
+     */
+    public record Result(int scanned, int owners, int positions, int skipped, int online, int failed,
+                         List<PositionStore.Entry> examples) {
+    }
+
+    public static final int MAX_EXAMPLES = 20;
+
+    private static final String COMPONENTS_KEY = "cardinal_components";
+    private static final long PROGRESS_INTERVAL_MS = 5000;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FrostedLib Offline Positions");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler((t, e) -> FrostedLib.LOGGER.error("Uncaught error in {}", t.getName(), e));
+        return thread;
+    });
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    // Running totals of one run, handed from the server thread to the worker and back
+    // for each file edit. The worker waits for every edit, so only one thread uses it at a time.
+    private static class Tally {
+        int scanned;
+        int owners;
+        int positions;
+        int skipped;
+        int online;
+        int failed;
+        final List<PositionStore.Entry> examples = new ArrayList<>(MAX_EXAMPLES);
+
+        void matched(UUID owner, String id, PositionData position) {
+            positions++;
+            if (examples.size() < MAX_EXAMPLES) {
+                examples.add(new PositionStore.Entry(owner, id, position));
+            }
+        }
+
+        Result result() {
+            return new Result(scanned, owners, positions, skipped, online, failed, examples);
+        }
+    }
+
+    /**
+     * Goes through every player's saved positions, counting those matching the id and
+     * dimension test and removing them if {@code remove} is set. Call on the server
+     * thread. Returns null if a run is already in progress.
+     */
+    public static CompletableFuture<Result> run(MinecraftServer server, BiPredicate<String, RegistryKey<World>> match,
+                                                boolean remove, Progress progress) {
+        if (!RUNNING.compareAndSet(false, true)) return null;
+
+        Tally tally = new Tally();
+        Set<UUID> online = new HashSet<>();
+        Path directory;
+        try {
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                online.add(player.getUuid());
+                handleOnline(player, match, remove, tally);
+            }
+            directory = server.getSavePath(WorldSavePath.PLAYERDATA);
+        } catch (RuntimeException e) {
+            RUNNING.set(false);
+            throw e;
+        }
+
+        CompletableFuture<Result> result = CompletableFuture.supplyAsync(() -> {
+            scanDirectory(server, directory, online, match, remove, progress, tally);
+            return tally.result();
+        }, EXECUTOR);
+        result.whenComplete((value, throwable) -> RUNNING.set(false));
+        return result;
+    }
+
+    private static void handleOnline(ServerPlayerEntity player, BiPredicate<String, RegistryKey<World>> match,
+                                     boolean remove, Tally tally) {
+        PlayerDataComponent data = ModComponents.PLAYER_DATA.get(player);
+        List<String> matched = new ArrayList<>();
+        data.getSnapshot().forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) -> {
+            if (!match.test(id, dimension)) return;
+            matched.add(id);
+            tally.matched(player.getUuid(), id, new PositionData(dimension, x, y, z, yaw, pitch));
+        });
+
+        if (matched.isEmpty()) return;
+        tally.owners++;
+        if (remove) {
+            matched.forEach(data::removePosition);
+        }
+    }
+
+    private static void scanDirectory(MinecraftServer server, Path directory, Set<UUID> online,
+                                      BiPredicate<String, RegistryKey<World>> match, boolean remove,
+                                      Progress progress, Tally tally) {
+        if (!Files.isDirectory(directory)) return;
+
+        int total = countFiles(directory);
+        long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.dat")) {
+            for (Path file : files) {
+                // Edits need the server thread, the rest of the run is reported as it stood
+                if (!server.isRunning()) break;
+
+                UUID owner = ownerOf(file);
+                if (owner == null) continue;
+
+                tally.scanned++;
+                if (!online.contains(owner)) {
+                    try {
+                        scanFile(server, file, owner, match, remove, tally);
+                    } catch (IOException | RuntimeException e) {
+                        FrostedLib.LOGGER.warn("Could not read saved positions from {}", file, e);
+                        tally.failed++;
+                    }
+                }
+
+                if (System.currentTimeMillis() >= nextProgress) {
+                    progress.update(tally.scanned, total);
+                    nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+                }
+            }
+        } catch (IOException e) {
+            FrostedLib.LOGGER.error("Could not list player files in {}", directory, e);
+            tally.failed++;
+        }
+    }
+
+    private static void scanFile(MinecraftServer server, Path file, UUID owner,
+                                 BiPredicate<String, RegistryKey<World>> match, boolean remove,
+                                 Tally tally) throws IOException {
+        NbtCompound component = readComponent(file);
+        if (component == null) return;
+
+        PositionTable positions = new PositionTable();
+        PositionCodec.read(component, positions::put);
+        if (remove) {
+            // Only a first look, the file may change before the server thread gets to it
+            if (hasMatch(positions, match)) {
+                onServerThread(server, () -> removeFromFile(server, file, owner, match, tally));
+            }
+            return;
+        }
+
+        if (collectMatches(owner, positions, match, tally).isEmpty()) return;
+        tally.owners++;
+    }
+
+    /**
+     * Removes the matching positions from an offline player's file. Runs on the server
+     * thread, where players log in and are saved, so the file can't change while it is
+     * read and replaced.
+     */
+    private static void removeFromFile(MinecraftServer server, Path file, UUID owner,
+                                       BiPredicate<String, RegistryKey<World>> match, Tally tally) {
+        // Logged in since the run started, their next save would undo the edit
+        if (server.getPlayerManager().getPlayer(owner) != null) {
+            tally.online++;
+            return;
+        }
+        // Editing their file would be undone by the journal once they log in
+        if (PositionJournal.hasPending(owner)) {
+            tally.skipped++;
+            return;
+        }
+
+        try {
+            NbtCompound nbt = NbtIo.readCompressed(file.toFile());
+            NbtCompound components = nbt.getCompound(COMPONENTS_KEY);
+            String key = ModComponents.PLAYER_DATA.getId().toString();
+            if (!components.contains(key, NbtElement.COMPOUND_TYPE)) return;
+            NbtCompound component = components.getCompound(key);
+
+            PositionTable positions = new PositionTable();
+            PositionCodec.read(component, positions::put);
+            List<String> matched = collectMatches(owner, positions, match, tally);
+            if (matched.isEmpty()) return;
+            tally.owners++;
+
+            matched.forEach(positions::remove);
+            component.remove(PositionCodec.KEY);
+            component.remove(PositionCodec.LEGACY_KEY);
+            // The store may not mirror this edit, the next login loads them into its copy again
+            component.remove(PositionStorage.COPY_KEY);
+            if (!positions.isEmpty()) {
+                PositionCodec.write(component, positions);
+            }
+            replace(file, owner, nbt);
+            PositionStorage.offlineChanged(owner, PositionSnapshot.copyOf(positions));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean hasMatch(PositionTable positions, BiPredicate<String, RegistryKey<World>> match) {
+        boolean[] found = {false};
+        positions.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) -> {
+            if (match.test(id, dimension)) found[0] = true;
+        });
+        return found[0];
+    }
+
+    private static List<String> collectMatches(UUID owner, PositionTable positions,
+                                               BiPredicate<String, RegistryKey<World>> match, Tally tally) {
+        List<String> matched = new ArrayList<>();
+        positions.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) -> {
+            if (!match.test(id, dimension)) return;
+            matched.add(id);
+            tally.matched(owner, id, new PositionData(dimension, x, y, z, yaw, pitch));
+        });
+        return matched;
+    }
+
+    // Waits for the task, giving up if the server stops before running it
+    private static void onServerThread(MinecraftServer server, Runnable task) {
+        CompletableFuture<Void> future = server.submit(task);
+        while (true) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (!server.isRunning()) {
+                    future.cancel(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(false);
+                throw new CancellationException("Interrupted while waiting for the server thread");
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }
+    }
+
+    // Only the FrostedLib component subtree, everything else in the file is skipped unread
+    private static NbtCompound readComponent(Path file) throws IOException {
+        String key = ModComponents.PLAYER_DATA.getId().toString();
+        SelectiveNbtCollector collector = new SelectiveNbtCollector(
+                new NbtScanQuery(List.of(COMPONENTS_KEY), NbtCompound.TYPE, key));
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            NbtIo.scan(in, collector);
+        }
+
+        if (!(collector.getRoot() instanceof NbtCompound root)) return null;
+        NbtCompound components = root.getCompound(COMPONENTS_KEY);
+        return components.contains(key, NbtElement.COMPOUND_TYPE) ? components.getCompound(key) : null;
+    }
+
+    // Same replace-with-backup as vanilla player saving
+    private static void replace(Path file, UUID owner, NbtCompound nbt) throws IOException {
+        File directory = file.getParent().toFile();
+        File temporary = File.createTempFile(owner + "-", ".dat", directory);
+        NbtIo.writeCompressed(nbt, temporary);
+        Util.backupAndReplace(file.toFile(), temporary, new File(directory, owner + ".dat_old"));
+    }
+
+    private static int countFiles(Path directory) {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.dat")) {
+            for (Path file : files) {
+                if (ownerOf(file) != null) count++;
+            }
+        } catch (IOException e) {
+            FrostedLib.LOGGER.warn("Could not count player files in {}", directory, e);
+        }
+        return count;
+    }
+
+    // Player files are named after the player's UUID, temporary and other files aren't
+    private static UUID ownerOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return UUID.fromString(name.substring(0, name.length() - ".dat".length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -7,22 +7,21 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.registry.Registries;
 import net.minecraft.registry.RegistryKeys;
 
 public class PlatformGenerator {
 
-    private static final String SHAPE_CIRCLE = "circle";
-    private static final String SHAPE_SQUARE = "square";
-    private static final String SHAPE_CROSS = "cross";
-    private static final String SHAPE_PLATFORM_ONLY = "platform_only";
-    private static final String SHAPE_SAFE_ROOM = "safe_room";
+    // Stateless, shared by every action
+    public static final PlatformGenerator INSTANCE = new PlatformGenerator();
 
     private static final String HEIGHT_EXPOSED = "exposed";
     private static final String HEIGHT_UNEXPOSED = "unexposed";
 
     public Vec3d generatePlatformAtPosition(SerializableData.Instance data, ServerWorld world,
                                             int centerX, int centerZ, String heightMode,
-                                            double preferredY, boolean strictHeight, boolean forcePlatform) {
+                                            double preferredY, boolean strictHeight, boolean forcePlatform,
+                                            SearchBudget budget) {
         // Get platform configuration
         Identifier platformBlockId = data.getId("platform_block");
         BlockState platformBlock = platformBlockId != null ?
@@ -33,7 +32,14 @@ public class PlatformGenerator {
         if (platformSize <= 0) platformSize = 3;
 
         String platformShape = data.getString("platform_shape");
-        if (platformShape == null) platformShape = SHAPE_CIRCLE;
+        if (platformShape == null) platformShape = PlatformTemplates.SHAPE_CIRCLE;
+
+        // Building loads every chunk under the footprint, check them against the budget first
+        PlatformTemplate template = PlatformTemplates.get(world.getServer(), platformShape, platformSize);
+        if (!budget.tryArea(world, centerX + template.getMinX(), centerZ + template.getMinZ(),
+                centerX + template.getMaxX(), centerZ + template.getMaxZ())) {
+            return null;
+        }
 
         // Find Y position for platform
         int platformY = findPlatformY(data, world, centerX, centerZ, preferredY, heightMode, strictHeight, forcePlatform);
@@ -41,6 +47,10 @@ public class PlatformGenerator {
         // Generate the platform
         generatePlatform(world, centerX, platformY, centerZ, platformSize, platformShape, platformBlock);
 
+        // Remember it, so later arrivals here can reuse it instead of rebuilding
+        PlatformRegistry.get(world).register(world, new BlockPos(centerX, platformY, centerZ), platformShape,
+                platformSize, Registries.BLOCK.getId(platformBlock.getBlock()), heightMode);
+
         // Calculate safe position on platform
         return calculatePlatformPosition(world, centerX, platformY, centerZ, platformSize, platformShape);
     }
@@ -51,8 +61,7 @@ public class PlatformGenerator {
         int worldTop = world.getTopY();
 
         // First, check if we're over liquid
-        PositionFinder positionFinder = new PositionFinder();
-        boolean overLiquid = positionFinder.isOverLiquidSurface(data, world, x, z);
+        boolean overLiquid = PositionFinder.INSTANCE.isOverLiquidSurface(data, world, x, z);
 
         if (heightMode.equals(HEIGHT_EXPOSED)) {
             if (overLiquid || forcePlatform) {
@@ -167,81 +176,16 @@ public class PlatformGenerator {
 
     public void generatePlatform(ServerWorld world, int centerX, int centerY, int centerZ,
                                  int size, String shape, BlockState block) {
-        switch (shape) {
-            case SHAPE_SQUARE:
-                generateSquarePlatform(world, centerX, centerY, centerZ, size, block);
-                break;
-            case SHAPE_CROSS:
-                generateCrossPlatform(world, centerX, centerY, centerZ, size, block);
-                break;
-            case SHAPE_PLATFORM_ONLY:
-                world.setBlockState(new BlockPos(centerX, centerY, centerZ), block);
-                break;
-            case SHAPE_SAFE_ROOM:
-                generateSafeRoom(world, centerX, centerY, centerZ, size, block);
-                break;
-            case SHAPE_CIRCLE:
-            default:
-                generateCircularPlatform(world, centerX, centerY, centerZ, size, block);
-                break;
-        }
-    }
+        PlatformTemplate template = PlatformTemplates.get(world.getServer(), shape, size);
 
-    private void generateCircularPlatform(ServerWorld world, int centerX, int centerY, int centerZ,
-                                          int radius, BlockState block) {
-        int radiusSq = radius * radius;
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dz = -radius; dz <= radius; dz++) {
-                if (dx * dx + dz * dz <= radiusSq) {
-                    world.setBlockState(new BlockPos(centerX + dx, centerY, centerZ + dz), block);
-                }
-            }
-        }
-    }
-
-    private void generateSquarePlatform(ServerWorld world, int centerX, int centerY, int centerZ,
-                                        int radius, BlockState block) {
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dz = -radius; dz <= radius; dz++) {
-                world.setBlockState(new BlockPos(centerX + dx, centerY, centerZ + dz), block);
-            }
-        }
-    }
-
-    private void generateCrossPlatform(ServerWorld world, int centerX, int centerY, int centerZ,
-                                       int radius, BlockState block) {
-        // Horizontal line
-        for (int dx = -radius; dx <= radius; dx++) {
-            world.setBlockState(new BlockPos(centerX + dx, centerY, centerZ), block);
-        }
-        // Vertical line
-        for (int dz = -radius; dz <= radius; dz++) {
-            world.setBlockState(new BlockPos(centerX, centerY, centerZ + dz), block);
-        }
-    }
-
-    private void generateSafeRoom(ServerWorld world, int centerX, int centerY, int centerZ,
-                                  int size, BlockState block) {
-        // Floor
-        generateSquarePlatform(world, centerX, centerY, centerZ, size, block);
-        // Ceiling
-        generateSquarePlatform(world, centerX, centerY + 3, centerZ, size, block);
-        // Walls
-        for (int y = centerY + 1; y <= centerY + 2; y++) {
-            for (int d = -size; d <= size; d++) {
-                world.setBlockState(new BlockPos(centerX + size, y, centerZ + d), block);
-                world.setBlockState(new BlockPos(centerX - size, y, centerZ + d), block);
-                world.setBlockState(new BlockPos(centerX + d, y, centerZ + size), block);
-                world.setBlockState(new BlockPos(centerX + d, y, centerZ - size), block);
-            }
-        }
+        // Write the precompiled offsets section by section in one pass
+        BlockPlacementBatch batch = new BlockPlacementBatch(world);
+        template.place(batch, centerX, centerY, centerZ, block);
+        batch.apply();
     }
 
     private Vec3d calculatePlatformPosition(ServerWorld world, int centerX, int centerY, int centerZ,
                                             int size, String shape) {
-        if (shape.equals(SHAPE_SAFE_ROOM)) {
-            return new Vec3d(centerX + 0.5, centerY + 1, centerZ + 0.5);
-        }
-        return new Vec3d(centerX + 0.5, centerY + 1, centerZ + 0.5);
+        return PlatformTemplates.get(world.getServer(), shape, size).arrival(centerX, centerY, centerZ);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,234 @@
+package com.futurefrost.frostedlib.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.PersistentState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Platforms FrostedLib has generated in a world, saved with the world.
+ * <p>
+ * Teleports that land inside the footprint of a recorded platform reuse it instead of
+ * searching and writing blocks again, as long as the caller accepts its arrival spot.
+ * Records are checked with a few block reads before being reused and are dropped as soon
+ * as the platform is found damaged, after {@value #EXPIRY_TICKS} ticks without use, or
+ * when more than {@value #MAX_RECORDS} are kept, least recently used first.
+ */
+public class PlatformRegistry extends PersistentState {
+
+    private static final String ID = "frostedlib_platforms";
+
+    // Template blocks sampled by the integrity check, besides the block under the arrival spot
+    private static final int INTEGRITY_SAMPLES = 8;
+
+    // About a week of play, platforms nobody came back to are left to the world
+    private static final long EXPIRY_TICKS = 7 * 24000L;
+    private static final int MAX_RECORDS = 4096;
+
+    public record PlatformRecord(BlockPos center, String shape, int size, Identifier block, String heightMode,
+                                 int minX, int maxX, int minZ, int maxZ, long lastUsed) {
+
+        boolean contains(int x, int z) {
+            return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+        }
+
+        boolean isExpired(long time) {
+            return time - lastUsed > EXPIRY_TICKS;
+        }
+
+        PlatformRecord usedAt(long time) {
+            return new PlatformRecord(center, shape, size, block, heightMode, minX, maxX, minZ, maxZ, time);
+        }
+
+        NbtCompound toNbt() {
+            NbtCompound nbt = new NbtCompound();
+            nbt.putLong("center", center.asLong());
+            nbt.putString("shape", shape);
+            nbt.putInt("size", size);
+            nbt.putString("block", block.toString());
+            nbt.putString("height_mode", heightMode);
+            nbt.putIntArray("bounds", new int[]{minX, maxX, minZ, maxZ});
+            nbt.putLong("last_used", lastUsed);
+            return nbt;
+        }
+
+        // Records saved before last_used existed count as used now
+        static PlatformRecord fromNbt(NbtCompound nbt, long time) {
+            int[] bounds = nbt.getIntArray("bounds");
+            return new PlatformRecord(
+                    BlockPos.fromLong(nbt.getLong("center")),
+                    nbt.getString("shape"),
+                    nbt.getInt("size"),
+                    new Identifier(nbt.getString("block")),
+                    nbt.getString("height_mode"),
+                    bounds[0], bounds[1], bounds[2], bounds[3],
+                    nbt.contains("last_used", NbtElement.LONG_TYPE) ? nbt.getLong("last_used") : time
+            );
+        }
+    }
+
+    // Least recently used first
+    private final List<PlatformRecord> records = new ArrayList<>();
+
+    // Chunk -> records whose footprint overlaps it
+    private final Long2ObjectMap<List<PlatformRecord>> byChunk = new Long2ObjectOpenHashMap<>();
+
+    public static PlatformRegistry get(ServerWorld world) {
+        return world.getPersistentStateManager().getOrCreate(nbt -> fromNbt(nbt, world.getTime()),
+                PlatformRegistry::new, ID);
+    }
+
+    public void register(ServerWorld world, BlockPos center, String shape, int size, Identifier block,
+                         String heightMode) {
+        PlatformTemplate template = PlatformTemplates.get(world.getServer(), shape, size);
+
+        // A new platform replaces any record at the same spot
+        removeAt(center);
+        prune(world.getTime());
+
+        add(new PlatformRecord(center, shape, size, block, heightMode,
+                center.getX() + template.getMinX(), center.getX() + template.getMaxX(),
+                center.getZ() + template.getMinZ(), center.getZ() + template.getMaxZ(), world.getTime()));
+        markDirty();
+    }
+
+    /**
+     * Returns the arrival position of an intact platform covering (x, z) that was
+     * generated for the same height mode and whose arrival spot passes {@code usable},
+     * or null if there is none.
+     */
+    public Vec3d findIntactPlatform(ServerWorld world, int x, int z, String heightMode, Predicate<Vec3d> usable) {
+        List<PlatformRecord> candidates = byChunk.get(ChunkPos.toLong(x >> 4, z >> 4));
+        if (candidates == null) return null;
+
+        long time = world.getTime();
+        for (PlatformRecord record : List.copyOf(candidates)) {
+            if (!record.contains(x, z) || !record.heightMode().equals(heightMode)) continue;
+
+            if (record.isExpired(time)) {
+                remove(record);
+                markDirty();
+                continue;
+            }
+
+            PlatformTemplate template = PlatformTemplates.get(world.getServer(), record.shape(), record.size());
+            if (!isIntact(world, record, template)) {
+                // Broken or removed by players, forget it so the next teleport builds a new one
+                remove(record);
+                markDirty();
+                continue;
+            }
+
+            BlockPos center = record.center();
+            Vec3d arrival = template.arrival(center.getX(), center.getY(), center.getZ());
+            // Intact but wrong for this teleport, e.g. another height or now flooded
+            if (!usable.test(arrival)) continue;
+
+            // Moves to the back of the eviction order
+            remove(record);
+            add(record.usedAt(time));
+            markDirty();
+            return arrival;
+        }
+
+        return null;
+    }
+
+    // Drops expired records, then the least recently used ones over the cap
+    private void prune(long time) {
+        while (!records.isEmpty() && (records.size() >= MAX_RECORDS || records.get(0).isExpired(time))) {
+            remove(records.get(0));
+        }
+    }
+
+    private boolean isIntact(ServerWorld world, PlatformRecord record, PlatformTemplate template) {
+        BlockState platformBlock = Registries.BLOCK.get(record.block()).getDefaultState();
+        BlockPos center = record.center();
+
+        // The arrival spot has to be clear
+        Vec3d arrival = template.arrival(center.getX(), center.getY(), center.getZ());
+        BlockPos feet = BlockPos.ofFloored(arrival);
+        if (world.getBlockState(feet).isOpaque() || world.getBlockState(feet.up()).isOpaque()) {
+            return false;
+        }
+
+        // Sample evenly spaced template blocks instead of reading all of them
+        int step = Math.max(1, template.size() / INTEGRITY_SAMPLES);
+        for (int i = 0; i < template.size(); i += step) {
+            long offset = template.offset(i);
+            BlockPos pos = center.add(
+                    BlockPos.unpackLongX(offset), BlockPos.unpackLongY(offset), BlockPos.unpackLongZ(offset));
+
+            BlockState expected = template.state(i, platformBlock);
+            if (!world.getBlockState(pos).isOf(expected.getBlock())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void add(PlatformRecord record) {
+        records.add(record);
+        for (int chunkX = record.minX() >> 4; chunkX <= record.maxX() >> 4; chunkX++) {
+            for (int chunkZ = record.minZ() >> 4; chunkZ <= record.maxZ() >> 4; chunkZ++) {
+                byChunk.computeIfAbsent(ChunkPos.toLong(chunkX, chunkZ), key -> new ArrayList<>()).add(record);
+            }
+        }
+    }
+
+    private void remove(PlatformRecord record) {
+        records.remove(record);
+        for (int chunkX = record.minX() >> 4; chunkX <= record.maxX() >> 4; chunkX++) {
+            for (int chunkZ = record.minZ() >> 4; chunkZ <= record.maxZ() >> 4; chunkZ++) {
+                long key = ChunkPos.toLong(chunkX, chunkZ);
+                List<PlatformRecord> list = byChunk.get(key);
+                if (list != null) {
+                    list.remove(record);
+                    if (list.isEmpty()) byChunk.remove(key);
+                }
+            }
+        }
+    }
+
+    private void removeAt(BlockPos center) {
+        for (PlatformRecord record : List.copyOf(records)) {
+            if (record.center().equals(center)) {
+                remove(record);
+            }
+        }
+    }
+
+    @Override
+    public NbtCompound writeNbt(NbtCompound nbt) {
+        NbtList list = new NbtList();
+        for (PlatformRecord record : records) {
+            list.add(record.toNbt());
+        }
+        nbt.put("platforms", list);
+        return nbt;
+    }
+
+    private static PlatformRegistry fromNbt(NbtCompound nbt, long time) {
+        PlatformRegistry registry = new PlatformRegistry();
+        NbtList list = nbt.getList("platforms", NbtElement.COMPOUND_TYPE);
+        for (int i = 0; i < list.size(); i++) {
+            registry.add(PlatformRecord.fromNbt(list.getCompound(i), time));
+        }
+        registry.prune(time);
+        return registry;
+    }
+}
@@ -0,0 +1,90 @@
+package com.futurefrost.frostedlib.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Precompiled platform geometry: block offsets relative to the platform center,
+ * packed with {@link BlockPos#asLong} and free of duplicates.
+ * <p>
+ * Built-in shapes have no states of their own and use the configured platform block.
+ * Custom shapes loaded from structure files carry one state per offset.
+ */
+public final class PlatformTemplate {
+
+    private final long[] offsets;
+    private final BlockState[] states;
+    private final int arrivalOffsetY;
+
+    // Horizontal footprint, relative to the center
+    private final int minX, maxX, minZ, maxZ;
+
+    PlatformTemplate(long[] offsets, BlockState[] states, int arrivalOffsetY) {
+        this.offsets = offsets;
+        this.states = states;
+        this.arrivalOffsetY = arrivalOffsetY;
+
+        int minX = 0, maxX = 0, minZ = 0, maxZ = 0;
+        for (long offset : offsets) {
+            minX = Math.min(minX, BlockPos.unpackLongX(offset));
+            maxX = Math.max(maxX, BlockPos.unpackLongX(offset));
+            minZ = Math.min(minZ, BlockPos.unpackLongZ(offset));
+            maxZ = Math.max(maxZ, BlockPos.unpackLongZ(offset));
+        }
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public long offset(int index) {
+        return offsets[index];
+    }
+
+    // The state to place at an offset, or the platform block for built-in shapes
+    public BlockState state(int index, BlockState platformBlock) {
+        return states != null ? states[index] : platformBlock;
+    }
+
+    public boolean hasOwnStates() {
+        return states != null;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    public void place(BlockPlacementBatch batch, int centerX, int centerY, int centerZ, BlockState platformBlock) {
+        for (int i = 0; i < offsets.length; i++) {
+            long offset = offsets[i];
+            batch.set(
+                    centerX + BlockPos.unpackLongX(offset),
+                    centerY + BlockPos.unpackLongY(offset),
+                    centerZ + BlockPos.unpackLongZ(offset),
+                    state(i, platformBlock)
+            );
+        }
+    }
+
+    // Where an entity should stand on a platform built at the given center
+    public Vec3d arrival(int centerX, int centerY, int centerZ) {
+        return new Vec3d(centerX + 0.5, centerY + arrivalOffsetY, centerZ + 0.5);
+    }
+}
@@ -0,0 +1,200 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryEntryLookup;
+import net.minecraft.resource.Resource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.InvalidIdentifierException;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of platform templates.
+ * <p>
+ * Built-in shapes are keyed by (shape, size) and computed once. Any other shape that
+ * is a namespaced id (for example {@code "mypack:arrival"}) is loaded from the structure
+ * file {@code data/mypack/structures/arrival.nbt} and cached until the next datapack reload.
+ * Custom templates are centered horizontally, their bottom layer sits at the platform Y,
+ * and entities arrive on top of that layer.
+ */
+public class PlatformTemplates {
+
+    public static final String SHAPE_CIRCLE = "circle";
+    public static final String SHAPE_SQUARE = "square";
+    public static final String SHAPE_CROSS = "cross";
+    public static final String SHAPE_PLATFORM_ONLY = "platform_only";
+    public static final String SHAPE_SAFE_ROOM = "safe_room";
+
+    private record TemplateKey(String shape, int size) {
+    }
+
+    private static final Map<TemplateKey, PlatformTemplate> BUILT_IN = new ConcurrentHashMap<>();
+    private static final Map<Identifier, Optional<PlatformTemplate>> CUSTOM = new ConcurrentHashMap<>();
+
+    public static PlatformTemplate get(MinecraftServer server, String shape, int size) {
+        if (shape.indexOf(':') >= 0) {
+            Optional<PlatformTemplate> custom = getCustom(server, shape);
+            if (custom.isPresent()) {
+                return custom.get();
+            }
+            shape = SHAPE_CIRCLE; // Same fallback as an unknown built-in shape
+        }
+
+        return BUILT_IN.computeIfAbsent(new TemplateKey(shape, size), PlatformTemplates::buildBuiltIn);
+    }
+
+    // Custom shapes come from datapacks, so they have to be reloaded with them
+    public static void clearCustom() {
+        CUSTOM.clear();
+    }
+
+    private static Optional<PlatformTemplate> getCustom(MinecraftServer server, String shape) {
+        Identifier id;
+        try {
+            id = new Identifier(shape);
+        } catch (InvalidIdentifierException e) {
+            FrostedLib.LOGGER.warn("Invalid platform shape '{}', using {}", shape, SHAPE_CIRCLE);
+            return Optional.empty();
+        }
+
+        return CUSTOM.computeIfAbsent(id, key -> loadCustom(server, key));
+    }
+
+    private static PlatformTemplate buildBuiltIn(TemplateKey key) {
+        Builder builder = new Builder();
+        int size = key.size();
+
+        switch (key.shape()) {
+            case SHAPE_SQUARE:
+                builder.square(0, size);
+                break;
+            case SHAPE_CROSS:
+                for (int d = -size; d <= size; d++) {
+                    builder.add(d, 0, 0, null);
+                    builder.add(0, 0, d, null);
+                }
+                break;
+            case SHAPE_PLATFORM_ONLY:
+                builder.add(0, 0, 0, null);
+                break;
+            case SHAPE_SAFE_ROOM:
+                // Floor and ceiling
+                builder.square(0, size);
+                builder.square(3, size);
+                // Walls
+                for (int y = 1; y <= 2; y++) {
+                    for (int d = -size; d <= size; d++) {
+                        builder.add(size, y, d, null);
+                        builder.add(-size, y, d, null);
+                        builder.add(d, y, size, null);
+                        builder.add(d, y, -size, null);
+                    }
+                }
+                break;
+            case SHAPE_CIRCLE:
+            default:
+                int radiusSq = size * size;
+                for (int dx = -size; dx <= size; dx++) {
+                    for (int dz = -size; dz <= size; dz++) {
+                        if (dx * dx + dz * dz <= radiusSq) {
+                            builder.add(dx, 0, dz, null);
+                        }
+                    }
+                }
+                break;
+        }
+
+        return builder.build(false);
+    }
+
+    private static Optional<PlatformTemplate> loadCustom(MinecraftServer server, Identifier id) {
+        Identifier path = new Identifier(id.getNamespace(), "structures/" + id.getPath() + ".nbt");
+        Optional<Resource> resource = server.getResourceManager().getResource(path);
+
+        if (resource.isEmpty()) {
+            FrostedLib.LOGGER.warn("Platform shape '{}' not found (expected {}), using {}", id, path, SHAPE_CIRCLE);
+            return Optional.empty();
+        }
+
+        try (InputStream stream = resource.get().getInputStream()) {
+            return Optional.of(fromStructureNbt(NbtIo.readCompressed(stream)));
+        } catch (IOException | RuntimeException e) {
+            FrostedLib.LOGGER.error("Failed to load platform shape '{}' from {}", id, path, e);
+            return Optional.empty();
+        }
+    }
+
+    private static PlatformTemplate fromStructureNbt(NbtCompound nbt) {
+        NbtList size = nbt.getList("size", NbtElement.INT_TYPE);
+        int halfX = size.getInt(0) / 2;
+        int halfZ = size.getInt(2) / 2;
+
+        // Structures with several palettes store them under "palettes"; use the first one
+        NbtList palette = nbt.contains("palettes", NbtElement.LIST_TYPE) ?
+                nbt.getList("palettes", NbtElement.LIST_TYPE).getList(0) :
+                nbt.getList("palette", NbtElement.COMPOUND_TYPE);
+
+        RegistryEntryLookup<Block> blockLookup = Registries.BLOCK.getReadOnlyWrapper();
+        BlockState[] paletteStates = new BlockState[palette.size()];
+        for (int i = 0; i < palette.size(); i++) {
+            paletteStates[i] = NbtHelper.toBlockState(blockLookup, palette.getCompound(i));
+        }
+
+        Builder builder = new Builder();
+        NbtList blocks = nbt.getList("blocks", NbtElement.COMPOUND_TYPE);
+        for (int i = 0; i < blocks.size(); i++) {
+            NbtCompound block = blocks.getCompound(i);
+            NbtList pos = block.getList("pos", NbtElement.INT_TYPE);
+            builder.add(pos.getInt(0) - halfX, pos.getInt(1), pos.getInt(2) - halfZ,
+                    paletteStates[block.getInt("state")]);
+        }
+
+        return builder.build(true);
+    }
+
+    private static class Builder {
+        // Keyed by packed offset, so repeated offsets (like safe room corners) collapse
+        private final Long2ObjectLinkedOpenHashMap<BlockState> blocks = new Long2ObjectLinkedOpenHashMap<>();
+
+        void add(int dx, int dy, int dz, BlockState state) {
+            blocks.put(BlockPos.asLong(dx, dy, dz), state);
+        }
+
+        void square(int dy, int radius) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    add(dx, dy, dz, null);
+                }
+            }
+        }
+
+        PlatformTemplate build(boolean withStates) {
+            long[] offsets = blocks.keySet().toLongArray();
+
+            BlockState[] states = null;
+            if (withStates) {
+                states = new BlockState[offsets.length];
+                for (int i = 0; i < offsets.length; i++) {
+                    states[i] = blocks.get(offsets[i]);
+                }
+            }
+
+            return new PlatformTemplate(offsets, states, 1);
+        }
+    }
+}
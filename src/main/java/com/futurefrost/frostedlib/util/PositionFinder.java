@@ -17,13 +17,19 @@ import java.util.*;
 
 public class PositionFinder {
 
+    // Stateless, shared by every action
+    public static final PositionFinder INSTANCE = new PositionFinder();
+
     private static final String HEIGHT_EXPOSED = "exposed";
     private static final String HEIGHT_UNEXPOSED = "unexposed";
     private static final String HEIGHT_RELATIVE = "relative";
     private static final String HEIGHT_FIXED = "fixed";
 
+    // How far above and below the preferred Y the fixed and relative modes look
+    private static final int HEIGHT_SEARCH_RANGE = 64;
+
     public Vec3d findSafePosition(SerializableData.Instance data, Entity entity,
-                                  ServerWorld world, int centerX, int centerZ) {
+                                  ServerWorld world, int centerX, int centerZ, SearchBudget budget) {
         String heightMode = data.getString("target_height");
         if (heightMode == null) {
             // Should not happen as each action sets a default
@@ -51,27 +57,44 @@ public class PositionFinder {
         boolean strictHeight = data.getBoolean("strict_height");
         boolean generatePlatform = data.getBoolean("generate_platform");
 
+        // Every stage stops as soon as the budget runs out; the caller reports which limit was hit
+        if (!budget.tryColumn(world, centerX, centerZ)) {
+            return null;
+        }
+
+        // STAGE 0: Reuse an intact platform FrostedLib already generated here, if this
+        // teleport could have built it and its spot meets this teleport's height and liquid rules
+        if (generatePlatform) {
+            String mode = heightMode;
+            Vec3d existingPlatform = PlatformRegistry.get(world).findIntactPlatform(world, centerX, centerZ, heightMode,
+                    arrival -> isUsablePlatform(data, world, arrival, mode, preferredY, strictHeight));
+            if (existingPlatform != null) {
+                return existingPlatform;
+            }
+        }
+
         // STAGE 1: Try exact position with strict height checking
         Vec3d exactPos = findSafeHeightPosition(data, world, centerX, centerZ, heightMode, preferredY, strictHeight);
         if (exactPos != null && isPositionActuallySafe(data, world, exactPos)) {
             return exactPos;
         }
 
-        // STAGE 2: Expanding search
-        int maxSearchRadius = Math.min(data.getInt("search_radius"), 128);
-        int maxSearchAttempts = data.getInt("max_search_attempts");
+        // STAGE 2: Expanding search, scaled down while the server is under load
+        int maxSearchRadius = budget.getEffort().scale(Math.min(data.getInt("search_radius"), 128));
+        int maxSearchAttempts = budget.getEffort().scale(data.getInt("max_search_attempts"));
 
         Vec3d expandingPos = findSafePositionExpandingSearch(data, world, centerX, centerZ, heightMode,
-                preferredY, maxSearchRadius, maxSearchAttempts, strictHeight);
+                preferredY, maxSearchRadius, maxSearchAttempts, strictHeight, budget);
         if (expandingPos != null) return expandingPos;
+        if (budget.isExhausted()) return null;
 
-        // STAGE 3: Platform generation
+        // STAGE 3: Platform generation, skipped while the server is overloaded
         boolean isOverLiquid = isOverLiquidSurface(data, world, centerX, centerZ);
-        if (generatePlatform || isOverLiquid) {
-            PlatformGenerator platformGenerator = new PlatformGenerator();
-            Vec3d platformPos = platformGenerator.generatePlatformAtPosition(data, world, centerX, centerZ,
-                    heightMode, preferredY, strictHeight, isOverLiquid);
+        if ((generatePlatform || isOverLiquid) && budget.getEffort().allowPlatforms()) {
+            Vec3d platformPos = PlatformGenerator.INSTANCE.generatePlatformAtPosition(data, world, centerX, centerZ,
+                    heightMode, preferredY, strictHeight, isOverLiquid, budget);
             if (platformPos != null) return platformPos;
+            if (budget.isExhausted()) return null;
         }
 
         // STAGE 4: Final fallbacks
@@ -105,7 +128,7 @@ public class PositionFinder {
             }
 
             // Search upward and downward from target Y
-            for (int offset = 1; offset < 64; offset++) {
+            for (int offset = 1; offset < HEIGHT_SEARCH_RANGE; offset++) {
                 // Try above
                 int yAbove = targetY + offset;
                 if (yAbove <= worldTop) {
@@ -168,7 +191,7 @@ public class PositionFinder {
         } else if (mode.equals(HEIGHT_RELATIVE)) {
             // RELATIVE mode: Search around preferred Y
             int centerY = (int) preferredY;
-            for (int offset = 0; offset < 64; offset++) {
+            for (int offset = 0; offset < HEIGHT_SEARCH_RANGE; offset++) {
                 // Check above
                 int testYAbove = centerY + offset;
                 if (testYAbove <= worldTop) {
@@ -226,6 +249,23 @@ public class PositionFinder {
         }
     }
 
+    // The height rules of findSafeHeightPosition, applied to a spot that is already known
+    private boolean isUsablePlatform(SerializableData.Instance data, ServerWorld world, Vec3d arrival,
+                                     String mode, double preferredY, boolean strictHeight) {
+        if (!isPositionActuallySafe(data, world, arrival)) return false;
+
+        BlockPos feet = BlockPos.ofFloored(arrival);
+        if (isBlockUnsafeLiquid(data, world, feet) || isBlockUnsafeLiquid(data, world, feet.down())) return false;
+
+        if (mode.equals(HEIGHT_FIXED) || mode.equals(HEIGHT_RELATIVE)) {
+            return Math.abs(feet.getY() - (int) preferredY) < HEIGHT_SEARCH_RANGE;
+        }
+        if (mode.equals(HEIGHT_UNEXPOSED)) {
+            return feet.getY() <= (int) preferredY && !(strictHeight && world.isSkyVisible(feet));
+        }
+        return !strictHeight || world.isSkyVisible(feet) || isOverLiquidSurface(data, world, feet.getX(), feet.getZ());
+    }
+
     private Vec3d getSurfacePosition(SerializableData.Instance data, ServerWorld world, int x, int z) {
         try {
             // First, check if we're over liquid
@@ -261,7 +301,8 @@ public class PositionFinder {
 
     private Vec3d findSafePositionExpandingSearch(SerializableData.Instance data, ServerWorld world, int centerX, int centerZ,
                                                   String heightMode, double preferredY,
-                                                  int maxRadius, int maxAttempts, boolean strictHeight) {
+                                                  int maxRadius, int maxAttempts, boolean strictHeight,
+                                                  SearchBudget budget) {
         // Generate exponential radius steps: 1, 2, 4, 8, 16, 32...
         List<Integer> radiusSteps = new ArrayList<>();
         for (int radius = 1; radius <= maxRadius; radius *= 2) {
@@ -293,6 +334,8 @@ public class PositionFinder {
                 int x = centerX + (int) (radius * Math.cos(angle));
                 int z = centerZ + (int) (radius * Math.sin(angle));
 
+                if (!budget.tryColumn(world, x, z)) return null;
+
                 Vec3d testPos = findSafeHeightPosition(data, world, x, z, heightMode, preferredY, strictHeight);
                 if (testPos != null && isPositionActuallySafe(data, world, testPos)) {
                     return testPos;
@@ -313,6 +356,8 @@ public class PositionFinder {
                         int x = centerX + (int) (radius * Math.cos(angle));
                         int z = centerZ + (int) (radius * Math.sin(angle));
 
+                        if (!budget.tryColumn(world, x, z)) return null;
+
                         Vec3d testPos = findSafeHeightPosition(data, world, x, z, heightMode, testY, strictHeight);
                         if (testPos != null && isPositionActuallySafe(data, world, testPos)) {
                             return testPos;
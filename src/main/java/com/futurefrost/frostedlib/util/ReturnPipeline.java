@@ -0,0 +1,180 @@
+package com.futurefrost.frostedlib.util;
+
+import net.minecraft.block.BedBlock;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.RespawnAnchorBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Teleports to a known position, a saved one or a spawn point, without loading the
+ * destination on the spot: the chunks are requested, checked once loaded, and only
+ * then is the move handed to {@link TeleportCommitQueue}. Used by return_pos,
+ * fake_respawn and /frostedlib return, so returning a whole server at once doesn't
+ * stall the tick.
+ * <p>
+ * Destinations that are already loaded are committed at the end of the current tick.
+ * Futures complete on the server thread and can be cancelled until the move is made.
+ */
+public class ReturnPipeline {
+
+    /**
+     * Where a player respawns, with a short description of what was picked
+     * ("bed spawn", "world spawn (spawn obstructed)", ...) for messages.
+     */
+    public record Destination(ServerWorld world, Vec3d position, float yaw, float pitch, String description) {
+    }
+
+    // Completes with whether the entity was teleported
+    public static CompletableFuture<Boolean> teleport(Entity entity, ServerWorld world, Vec3d position,
+                                                      float yaw, float pitch) {
+        return whenLoaded(world, BlockPos.ofFloored(position), () ->
+                TeleportCommitQueue.submit(entity, world, position,
+                        () -> TeleportHelper.teleportEntity(entity, world, position, yaw, pitch)));
+    }
+
+    public static CompletableFuture<Boolean> teleport(Entity entity, Destination destination) {
+        return teleport(entity, destination.world(), destination.position(), destination.yaw(), destination.pitch());
+    }
+
+    /**
+     * Sends the player to their bed, respawn anchor or other set spawn point, falling
+     * back to world spawn if it's gone or obstructed. The spawn block is only checked
+     * once its chunk is loaded. Completes with where the player went, or null if the
+     * teleport didn't happen.
+     */
+    public static CompletableFuture<Destination> respawn(ServerPlayerEntity player) {
+        MinecraftServer server = player.getServer();
+        if (server == null) return CompletableFuture.completedFuture(null);
+
+        RegistryKey<World> spawnDimension = player.getSpawnPointDimension();
+        BlockPos spawnBlockPos = player.getSpawnPointPosition();
+        ServerWorld spawnWorld = spawnBlockPos != null && spawnDimension != null ?
+                server.getWorld(spawnDimension) : null;
+
+        if (spawnWorld == null) {
+            Destination destination = worldSpawn(server, player.getSpawnAngle(), 0.0f, "world spawn");
+            return map(teleport(player, destination), success -> success ? destination : null);
+        }
+
+        // The respawn position is next to the spawn block, so it is loaded along with it.
+        // World spawn is always loaded, so the fallbacks don't need another load either.
+        return whenLoaded(spawnWorld, spawnBlockPos, () -> {
+            Destination destination = validateSpawnPoint(server, spawnWorld, spawnBlockPos, player.getSpawnAngle());
+            CompletableFuture<Boolean> move = TeleportCommitQueue.submit(player, destination.world(), destination.position(),
+                    () -> TeleportHelper.teleportPlayer(player, destination.world(), destination.position(),
+                            destination.yaw(), destination.pitch()));
+            return map(move, success -> success ? destination : null);
+        });
+    }
+
+    public static Destination worldSpawn(MinecraftServer server, float yaw, float pitch, String description) {
+        ServerWorld overworld = server.getOverworld();
+        return new Destination(overworld, Vec3d.ofBottomCenter(overworld.getSpawnPos()), yaw, pitch, description);
+    }
+
+    // Bed or anchor check, same rules as vanilla respawning. The chunk must be loaded.
+    private static Destination validateSpawnPoint(MinecraftServer server, ServerWorld world, BlockPos spawnBlockPos,
+                                                  float spawnAngle) {
+        RegistryKey<World> dimension = world.getRegistryKey();
+        BlockState blockState = world.getBlockState(spawnBlockPos);
+
+        boolean valid;
+        String spawnType;
+        if (dimension == World.OVERWORLD) {
+            boolean isBed = blockState.getBlock() instanceof BedBlock;
+            boolean isWorldSpawn = spawnBlockPos.equals(world.getSpawnPos());
+            valid = isBed && !isWorldSpawn;
+            spawnType = "bed spawn";
+        } else if (dimension == World.NETHER) {
+            boolean isRespawnAnchor = blockState.getBlock() instanceof RespawnAnchorBlock;
+            valid = isRespawnAnchor && blockState.get(RespawnAnchorBlock.CHARGES) > 0;
+            spawnType = "respawn anchor";
+        } else {
+            valid = true;
+            spawnType = "dimension spawn point";
+        }
+
+        if (!valid) {
+            return worldSpawn(server, spawnAngle, 0.0f, "world spawn");
+        }
+
+        Optional<Vec3d> safeSpawn = PlayerEntity.findRespawnPosition(world, spawnBlockPos, spawnAngle, false, true);
+        if (safeSpawn.isEmpty()) {
+            return worldSpawn(server, spawnAngle, 0.0f, "world spawn (spawn obstructed)");
+        }
+        return new Destination(world, safeSpawn.get(), spawnAngle, 0.0f, spawnType);
+    }
+
+    /**
+     * Queues the commit once the chunks around pos are loaded, and keeps them loaded until
+     * the queued move is done. Cancelling the result reaches whichever step is running.
+     */
+    private static <T> CompletableFuture<T> whenLoaded(ServerWorld world, BlockPos pos,
+                                                       Supplier<CompletableFuture<T>> commit) {
+        CompletableFuture<ChunkPrefetcher.Prefetch> load = ChunkPrefetcher.load(world, pos);
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        load.whenComplete((prefetch, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            CompletableFuture<T> committed;
+            try {
+                committed = commit.get();
+            } catch (RuntimeException e) {
+                prefetch.release();
+                result.completeExceptionally(e);
+                return;
+            }
+
+            committed.whenComplete((value, error) -> {
+                prefetch.release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    committed.cancel(false);
+                }
+            });
+        });
+
+        // Cancelled before the chunks are in: stop waiting for them and free the ticket
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                load.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    // thenApply, except that cancelling the mapped future also cancels the source
+    private static <T, R> CompletableFuture<R> map(CompletableFuture<T> source, Function<T, R> mapper) {
+        CompletableFuture<R> mapped = source.thenApply(mapper);
+        mapped.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                source.cancel(false);
+            }
+        });
+        return mapped;
+    }
+}
@@ -0,0 +1,120 @@
+package com.futurefrost.frostedlib.util;
+
+import io.github.apace100.calio.data.SerializableData;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Time and chunk-load limits for one teleport, from {@code max_search_millis} and
+ * {@code max_chunk_loads} (0 means no limit).
+ * <p>
+ * Searches ask the budget before probing a column or area. Once a limit is hit the
+ * budget stays exhausted and remembers which limit it was, so the failure can say so.
+ * The deadline may be checked from any thread, chunk loads are only counted on the
+ * server thread.
+ * <p>
+ * The budget also carries the {@link ServerLoadMonitor.Effort} sampled when it was created,
+ * which scales attempts and radii and may restrict the search to loaded chunks.
+ */
+public class SearchBudget {
+
+    public enum Limit {
+        TIME,
+        CHUNK_LOADS,
+        SERVER_LOAD
+    }
+
+    private final long maxMillis;
+    private final int maxChunkLoads;
+    private final long deadlineNanos;
+    private final ServerLoadMonitor.Effort effort;
+
+    // Unloaded chunks this search has touched, each counted once
+    private final LongSet loadedChunks = new LongOpenHashSet();
+
+    private volatile Limit exceeded;
+
+    public SearchBudget(long maxMillis, int maxChunkLoads, ServerLoadMonitor.Effort effort) {
+        this.maxMillis = maxMillis;
+        this.maxChunkLoads = maxChunkLoads;
+        this.deadlineNanos = maxMillis > 0 ? System.nanoTime() + maxMillis * 1_000_000L : Long.MAX_VALUE;
+        this.effort = effort;
+    }
+
+    public static SearchBudget fromData(SerializableData.Instance data, MinecraftServer server) {
+        return new SearchBudget(data.getInt("max_search_millis"), data.getInt("max_chunk_loads"),
+                ServerLoadMonitor.getEffort(server));
+    }
+
+    public ServerLoadMonitor.Effort getEffort() {
+        return effort;
+    }
+
+    public boolean isExhausted() {
+        if (exceeded != null) return true;
+
+        if (System.nanoTime() > deadlineNanos) {
+            exceeded = Limit.TIME;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks the budget before reading the column at (x, z), counting the chunk if it
+     * isn't loaded yet. Returns false if the search has to stop.
+     */
+    public boolean tryColumn(ServerWorld world, int x, int z) {
+        return tryChunk(world, x >> 4, z >> 4);
+    }
+
+    // Same as tryColumn for every chunk overlapping the block area
+    public boolean tryArea(ServerWorld world, int minX, int minZ, int maxX, int maxZ) {
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!tryChunk(world, chunkX, chunkZ)) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryChunk(ServerWorld world, int chunkX, int chunkZ) {
+        if (isExhausted()) return false;
+        if (!effort.loadedChunksOnly() && maxChunkLoads <= 0) return true;
+        if (world.getChunkManager().isChunkLoaded(chunkX, chunkZ)) return true;
+
+        if (effort.loadedChunksOnly()) {
+            exceeded = Limit.SERVER_LOAD;
+            return false;
+        }
+
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (loadedChunks.contains(key)) return true;
+
+        if (loadedChunks.size() >= maxChunkLoads) {
+            exceeded = Limit.CHUNK_LOADS;
+            return false;
+        }
+
+        loadedChunks.add(key);
+        return true;
+    }
+
+    // The limit that stopped the search, or null if none was hit
+    public Limit getExceeded() {
+        return exceeded;
+    }
+
+    public String describeExceeded() {
+        if (exceeded == null) return null;
+
+        return switch (exceeded) {
+            case TIME -> "Search stopped after " + maxMillis + " ms (max_search_millis)";
+            case CHUNK_LOADS -> "Search stopped after loading " + maxChunkLoads + " chunks (max_chunk_loads)";
+            case SERVER_LOAD -> "Search stopped at an unloaded chunk, the server is under heavy load";
+        };
+    }
+}
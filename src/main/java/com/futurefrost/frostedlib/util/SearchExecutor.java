@@ -0,0 +1,38 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchExecutor {
+
+    // Searches are CPU bound (noise and placement math), so a small pool is plenty
+    // and leaves the remaining cores to the server and chunk workers.
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, new SearchThreadFactory());
+
+    /**
+     * Executor for off-thread searches. Tasks submitted here must never touch
+     * world or entity state; hand results back to the server thread instead.
+     */
+    public static Executor get() {
+        return EXECUTOR;
+    }
+
+    private static class SearchThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FrostedLib Search Worker-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> FrostedLib.LOGGER.error("Uncaught error in {}", t.getName(), e));
+            return thread;
+        }
+    }
+}
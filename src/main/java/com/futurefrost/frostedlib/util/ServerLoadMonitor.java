@@ -0,0 +1,46 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.registry.ModGameRules;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.GameRules;
+
+/**
+ * Scales teleport search effort with the server's recent tick times.
+ * <p>
+ * Below {@code frostedlibRelaxedMspt} searches run with their configured values. Between
+ * that and {@code frostedlibStrainedMspt} attempts and radii shrink linearly, down to
+ * {@code frostedlibMinSearchEffort} percent. At or above the strained threshold searches
+ * also stop generating platforms and only read chunks that are already loaded.
+ */
+public class ServerLoadMonitor {
+
+    public record Effort(double factor, boolean allowPlatforms, boolean loadedChunksOnly) {
+
+        public static final Effort FULL = new Effort(1.0, true, false);
+
+        // Scales a configured attempt count or radius, never below 1
+        public int scale(int configured) {
+            if (configured <= 1 || factor >= 1.0) return configured;
+            return Math.max(1, (int) Math.ceil(configured * factor));
+        }
+    }
+
+    public static Effort getEffort(MinecraftServer server) {
+        GameRules rules = server.getGameRules();
+        int relaxed = rules.getInt(ModGameRules.RELAXED_MSPT);
+        int strained = Math.max(relaxed + 1, rules.getInt(ModGameRules.STRAINED_MSPT));
+        double floor = Math.min(100, rules.getInt(ModGameRules.MIN_SEARCH_EFFORT)) / 100.0;
+
+        // Smoothed average of the last ticks, in milliseconds
+        double mspt = server.getTickTime();
+        if (mspt <= relaxed) {
+            return Effort.FULL;
+        }
+
+        double strain = Math.min(1.0, (mspt - relaxed) / (strained - relaxed));
+        double factor = Math.max(floor, 1.0 - strain);
+        boolean overloaded = mspt >= strained;
+
+        return new Effort(factor, !overloaded, overloaded);
+    }
+}
@@ -0,0 +1,42 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Runs tasks on the server thread a number of ticks from now. Server thread only.
+ */
+public class ServerTaskScheduler {
+
+    private record ScheduledTask(long dueTick, long order, Runnable task) {
+    }
+
+    // Ordered by due tick, then by scheduling order
+    private static final PriorityQueue<ScheduledTask> TASKS = new PriorityQueue<>(
+            Comparator.comparingLong(ScheduledTask::dueTick).thenComparingLong(ScheduledTask::order));
+
+    private static long nextOrder = 0;
+
+    public static void schedule(MinecraftServer server, int delayTicks, Runnable task) {
+        TASKS.add(new ScheduledTask(server.getTicks() + Math.max(1, delayTicks), nextOrder++, task));
+    }
+
+    // Called at the end of every server tick
+    public static void tick(MinecraftServer server) {
+        long now = server.getTicks();
+        while (!TASKS.isEmpty() && TASKS.peek().dueTick() <= now) {
+            try {
+                TASKS.poll().task().run();
+            } catch (Exception e) {
+                FrostedLib.LOGGER.error("Scheduled FrostedLib task failed", e);
+            }
+        }
+    }
+
+    public static void clear() {
+        TASKS.clear();
+    }
+}
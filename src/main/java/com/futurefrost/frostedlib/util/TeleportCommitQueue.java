@@ -0,0 +1,116 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Holds the actual entity moves until the end of the server tick.
+ * <p>
+ * Actions resolve their destination wherever they run, often in the middle of entity
+ * ticking while power evaluation walks the world's entity lists. Moving an entity across
+ * dimensions there removes and re-adds it mid-iteration, so the move is queued instead
+ * and all of them are committed together at {@code END_SERVER_TICK}, grouped by
+ * destination world and chunk so each chunk is prepared once for everyone going there.
+ * <p>
+ * An entity is moved at most once per tick: a later commit for the same entity replaces
+ * the earlier one, which is cancelled. Cancelled commits are skipped. Commits for
+ * entities removed before the flush are cancelled as well.
+ * Server thread only.
+ */
+public class TeleportCommitQueue {
+
+    private record Commit(Entity entity, ServerWorld world, Vec3d position, BooleanSupplier move,
+                          CompletableFuture<Boolean> future) {
+    }
+
+    private static Map<UUID, Commit> pending = new LinkedHashMap<>();
+
+    /**
+     * Queues a move of the entity to the position. {@code move} performs it at the end of
+     * the tick and returns whether it worked; the future completes with that result.
+     */
+    public static CompletableFuture<Boolean> submit(Entity entity, ServerWorld world, Vec3d position,
+                                                    BooleanSupplier move) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Commit replaced = pending.put(entity.getUuid(), new Commit(entity, world, position, move, future));
+        if (replaced != null) {
+            replaced.future().cancel(false);
+        }
+        return future;
+    }
+
+    // Called at the end of every server tick, after everything that may submit
+    public static void flush() {
+        if (pending.isEmpty()) return;
+
+        // Moves submitted while flushing, from completion callbacks, wait for the next tick
+        Map<UUID, Commit> commits = pending;
+        pending = new LinkedHashMap<>();
+
+        for (Map.Entry<ServerWorld, Long2ObjectLinkedOpenHashMap<List<Commit>>> world : group(commits).entrySet()) {
+            for (Long2ObjectLinkedOpenHashMap.Entry<List<Commit>> chunk : world.getValue().long2ObjectEntrySet()) {
+                commitChunk(world.getKey(), new ChunkPos(chunk.getLongKey()), chunk.getValue());
+            }
+        }
+    }
+
+    private static Map<ServerWorld, Long2ObjectLinkedOpenHashMap<List<Commit>>> group(Map<UUID, Commit> commits) {
+        Map<ServerWorld, Long2ObjectLinkedOpenHashMap<List<Commit>>> groups = new IdentityHashMap<>();
+        for (Commit commit : commits.values()) {
+            long chunk = ChunkPos.toLong(BlockPos.ofFloored(commit.position()));
+            groups.computeIfAbsent(commit.world(), world -> new Long2ObjectLinkedOpenHashMap<>())
+                    .computeIfAbsent(chunk, key -> new ArrayList<>())
+                    .add(commit);
+        }
+        return groups;
+    }
+
+    private static void commitChunk(ServerWorld world, ChunkPos chunkPos, List<Commit> commits) {
+        // Prepared once for the whole group, the ticket keeps it loaded while they arrive
+        world.getChunkManager().addTicket(ChunkTicketType.POST_TELEPORT, chunkPos, 1, commits.get(0).entity().getId());
+        world.getChunk(chunkPos.x, chunkPos.z);
+
+        for (Commit commit : commits) {
+            if (commit.future().isDone()) continue; // Cancelled after it was queued
+
+            // Died or unloaded since it was queued, nothing went wrong with the teleport itself
+            if (commit.entity().isRemoved()) {
+                commit.future().cancel(false);
+                continue;
+            }
+
+            boolean success;
+            try {
+                success = commit.move().getAsBoolean();
+            } catch (Exception e) {
+                FrostedLib.LOGGER.error("Teleport of {} failed", commit.entity().getName().getString(), e);
+                success = false;
+            }
+            commit.future().complete(success);
+        }
+    }
+
+    public static int getPendingCount() {
+        return pending.size();
+    }
+
+    public static void clear() {
+        pending.values().forEach(commit -> commit.future().cancel(false));
+        pending = new LinkedHashMap<>();
+    }
+}
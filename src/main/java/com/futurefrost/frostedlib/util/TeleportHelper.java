@@ -37,6 +37,35 @@ public class TeleportHelper {
         }
     }
 
+    /**
+     * Teleports any entity, going through teleportPlayer for players
+     */
+    public static boolean teleportEntity(Entity entity, ServerWorld targetWorld, Vec3d targetPos, float yaw, float pitch) {
+        if (entity instanceof ServerPlayerEntity player) {
+            return teleportPlayer(player, targetWorld, targetPos, yaw, pitch);
+        }
+        if (entity == null || targetWorld == null) {
+            return false;
+        }
+
+        try {
+            entity.teleport(
+                    targetWorld,
+                    targetPos.x,
+                    targetPos.y,
+                    targetPos.z,
+                    java.util.Set.of(),
+                    yaw,
+                    pitch
+            );
+
+            return true;
+        } catch (Exception e) {
+            FrostedLib.LOGGER.error("Failed to teleport entity", e);
+            return false;
+        }
+    }
+
     /**
      * Finds a safe Y position at given X,Z coordinates
      * Returns the highest safe position (air at feet and head level)
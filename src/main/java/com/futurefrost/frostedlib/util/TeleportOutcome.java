@@ -0,0 +1,30 @@
+package com.futurefrost.frostedlib.util;
+
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Result of a target position search: either the position that was found, or the
+ * kind of failure plus a message describing it.
+ * <p>
+ * Misses like "no such biome nearby" are normal outcomes, so they are returned
+ * instead of thrown.
+ */
+public record TeleportOutcome(Vec3d position, ErrorHandler.ErrorType errorType, String detail) {
+
+    public static TeleportOutcome success(Vec3d position) {
+        return new TeleportOutcome(position, null, null);
+    }
+
+    public static TeleportOutcome failure(ErrorHandler.ErrorType errorType, String detail) {
+        return new TeleportOutcome(null, errorType, detail);
+    }
+
+    // The search ran out of time or chunk loads before it found anything
+    public static TeleportOutcome budgetExceeded(SearchBudget budget) {
+        return failure(ErrorHandler.ErrorType.NO_SAFE_POSITION, budget.describeExceeded());
+    }
+
+    public boolean isSuccess() {
+        return errorType == null;
+    }
+}
@@ -0,0 +1,200 @@
+package com.futurefrost.frostedlib.util;
+
+import com.futurefrost.frostedlib.FrostedLib;
+import com.futurefrost.frostedlib.registry.ModGameRules;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * Server-wide queue every FrostedLib teleport goes through.
+ * <p>
+ * Each tick admits requests until the {@code frostedlibTeleportBudget} game rule is spent.
+ * Cheap requests go first: saved-position returns, then fixed and relative teleports,
+ * then biome and structure locates. Within a priority, entities are served in arrival
+ * order, and since each has at most one request waiting, one entity spamming a power
+ * can't hold up everyone else.
+ * <p>
+ * A request that fits the budget while nothing is waiting runs right away, so single
+ * teleports are never delayed. Bursts are spread over the next ticks instead.
+ * <p>
+ * Each entity has at most one request in the queue or searching at a time. A request
+ * with the same key as the one already there (the same power firing again) joins it
+ * and is dropped, since the first one will teleport the entity anyway. A request with a
+ * different key replaces it, cancelling its search if it already started.
+ * Server thread only.
+ */
+public class TeleportQueue {
+
+    public enum Priority {
+        RETURN(1),
+        DIRECT(4),
+        SEARCH(16);
+
+        private final int cost;
+
+        Priority(int cost) {
+            this.cost = cost;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+    }
+
+    private record Request(Entity entity, Priority priority, Object key, Runnable task) {
+    }
+
+    private record InFlight(Object key, Future<?> future) {
+    }
+
+    // Per priority: entities in turn order. Entries whose request was replaced are skipped.
+    private static final Map<Priority, ArrayDeque<UUID>> TURNS = new EnumMap<>(Priority.class);
+
+    static {
+        for (Priority priority : Priority.values()) {
+            TURNS.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    // The one waiting request per entity, and the search it may have running
+    private static final Map<UUID, Request> WAITING = new HashMap<>();
+    private static final Map<UUID, InFlight> IN_FLIGHT = new HashMap<>();
+
+    private static int spentThisTick = 0;
+
+    /**
+     * Submits a teleport for the entity. {@code key} identifies what is being asked for,
+     * usually the action's data instance; it is compared by identity.
+     */
+    public static void submit(Entity entity, Priority priority, Object key, Runnable task) {
+        MinecraftServer server = entity.getServer();
+        if (server == null) return;
+
+        UUID owner = entity.getUuid();
+
+        InFlight inFlight = IN_FLIGHT.get(owner);
+        if (inFlight != null && !inFlight.future().isDone()) {
+            if (inFlight.key() == key) {
+                return; // Already searching for exactly this
+            }
+            inFlight.future().cancel(false);
+        }
+        IN_FLIGHT.remove(owner);
+
+        Request waiting = WAITING.get(owner);
+        if (waiting != null) {
+            if (waiting.key() == key) {
+                return; // Already waiting for exactly this
+            }
+            if (waiting.priority() == priority) {
+                // Keep the turn, just swap what is asked for
+                WAITING.put(owner, new Request(entity, priority, key, task));
+                return;
+            }
+            WAITING.remove(owner);
+        }
+
+        if (WAITING.isEmpty() && spentThisTick + priority.getCost() <= getBudget(server)) {
+            spentThisTick += priority.getCost();
+            task.run();
+            return;
+        }
+
+        WAITING.put(owner, new Request(entity, priority, key, task));
+        TURNS.get(priority).addLast(owner);
+    }
+
+    /**
+     * Records a search the entity's admitted request left running, so a later request
+     * can join or cancel it.
+     */
+    public static void trackInFlight(Entity entity, Object key, Future<?> future) {
+        if (!future.isDone()) {
+            IN_FLIGHT.put(entity.getUuid(), new InFlight(key, future));
+        }
+    }
+
+    // Called at the end of every server tick
+    public static void tick(MinecraftServer server) {
+        drain(getBudget(server));
+
+        if (!IN_FLIGHT.isEmpty()) {
+            IN_FLIGHT.values().removeIf(inFlight -> inFlight.future().isDone());
+        }
+
+        // Requests submitted from now on count against the next tick
+        spentThisTick = 0;
+    }
+
+    private static void drain(int budget) {
+        for (Priority priority : Priority.values()) {
+            ArrayDeque<UUID> turns = TURNS.get(priority);
+
+            while (!turns.isEmpty()) {
+                // Always let at least one request through so a tiny budget can't stall the queue
+                if (spentThisTick > 0 && spentThisTick + priority.getCost() > budget) {
+                    return;
+                }
+
+                UUID owner = turns.pollFirst();
+                Request request = WAITING.get(owner);
+                if (request == null || request.priority() != priority) {
+                    continue; // Replaced by a request of another priority
+                }
+                WAITING.remove(owner);
+
+                if (request.entity().isRemoved()) {
+                    continue; // Left the world while waiting, costs nothing
+                }
+
+                spentThisTick += priority.getCost();
+                try {
+                    request.task().run();
+                } catch (Exception e) {
+                    FrostedLib.LOGGER.error("Queued teleport for {} failed", request.entity().getName().getString(), e);
+                }
+            }
+        }
+    }
+
+    public static int getDepth() {
+        return WAITING.size();
+    }
+
+    public static int getDepth(Priority priority) {
+        int count = 0;
+        for (Request request : WAITING.values()) {
+            if (request.priority() == priority) count++;
+        }
+        return count;
+    }
+
+    public static int getInFlightCount() {
+        int count = 0;
+        for (InFlight inFlight : IN_FLIGHT.values()) {
+            if (!inFlight.future().isDone()) count++;
+        }
+        return count;
+    }
+
+    public static void clear() {
+        for (Priority priority : Priority.values()) {
+            TURNS.get(priority).clear();
+        }
+        WAITING.clear();
+        IN_FLIGHT.values().forEach(inFlight -> inFlight.future().cancel(false));
+        IN_FLIGHT.clear();
+        spentThisTick = 0;
+    }
+
+    private static int getBudget(MinecraftServer server) {
+        return server.getGameRules().getInt(ModGameRules.TELEPORT_BUDGET);
+    }
+}
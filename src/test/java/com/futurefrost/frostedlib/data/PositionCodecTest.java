@@ -0,0 +1,159 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.futurefrost.frostedlib.data.PositionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionCodecTest {
+
+    private static Map<String, PositionData> readAll(NbtCompound nbt, Set<String> serverOnly) {
+        Map<String, PositionData> read = new LinkedHashMap<>();
+        PositionCodec.read(nbt, (id, position, isServerOnly) -> {
+            read.put(id, position);
+            if (isServerOnly) serverOnly.add(id);
+        });
+        return read;
+    }
+
+    @Test
+    void packedRoundTripKeepsEveryField() {
+        PositionTable table = new PositionTable();
+        table.put("home", new PositionData(OVERWORLD, 1.5, 64.0, -3.25, 90.0f, -12.5f));
+        table.put("fortress", new PositionData(NETHER, -100.0, 40.0, 7.0, 0.0f, 0.0f), true);
+        // Values that only survive as raw bits
+        table.put("edge", new PositionData(OVERWORLD, -0.0, Double.MIN_VALUE, 3.0E7, -0.0f, Float.NaN));
+
+        NbtCompound nbt = new NbtCompound();
+        PositionCodec.write(nbt, table);
+
+        Set<String> serverOnly = new HashSet<>();
+        Map<String, PositionData> read = readAll(nbt, serverOnly);
+
+        assertEquals(3, read.size());
+        assertEquals(table.get("home"), read.get("home"));
+        assertEquals(table.get("fortress"), read.get("fortress"));
+        PositionData edge = read.get("edge");
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(edge.x()));
+        assertEquals(Double.MIN_VALUE, edge.y());
+        assertEquals(Float.floatToRawIntBits(-0.0f), Float.floatToRawIntBits(edge.yaw()));
+        assertTrue(Float.isNaN(edge.pitch()));
+        assertEquals(Set.of("fortress"), serverOnly);
+    }
+
+    @Test
+    void packedLayoutSharesDimensionPalette() {
+        PositionTable table = new PositionTable();
+        for (int i = 0; i < 10; i++) {
+            table.put("p" + i, position(i));
+        }
+
+        NbtCompound nbt = new NbtCompound();
+        PositionCodec.write(nbt, table);
+
+        NbtCompound packed = nbt.getCompound(PositionCodec.KEY);
+        assertEquals(2, packed.getList("dimensions", NbtElement.STRING_TYPE).size());
+        assertEquals(10 * 3, packed.getLongArray("coords").length);
+        assertEquals(10 * 3, packed.getIntArray("extra").length);
+        assertFalse(packed.contains("server_only"));
+    }
+
+    @Test
+    void snapshotWritesSameLayoutAsTable() {
+        PositionTable table = new PositionTable();
+        table.put("a", new PositionData(OVERWORLD, 1, 2, 3, 4, 5));
+        table.put("b", new PositionData(NETHER, 6, 7, 8, 9, 10), true);
+
+        NbtCompound fromTable = new NbtCompound();
+        PositionCodec.write(fromTable, table);
+        NbtCompound fromSnapshot = new NbtCompound();
+        PositionCodec.write(fromSnapshot, PositionSnapshot.copyOf(table));
+
+        Set<String> serverOnly = new HashSet<>();
+        assertEquals(readAll(fromTable, new HashSet<>()), readAll(fromSnapshot, serverOnly));
+        assertEquals(Set.of("b"), serverOnly);
+    }
+
+    @Test
+    void legacyListStillReads() {
+        NbtList list = new NbtList();
+        PositionData home = new PositionData(OVERWORLD, 10.0, 70.0, -20.0, 45.0f, 10.0f);
+        PositionData fortress = new PositionData(NETHER, 1.0, 2.0, 3.0, 0.0f, 0.0f);
+        for (Map.Entry<String, PositionData> entry : Map.of("home", home, "fortress", fortress).entrySet()) {
+            NbtCompound entryNbt = new NbtCompound();
+            entryNbt.putString("id", entry.getKey());
+            entryNbt.put("position", entry.getValue().toNbt());
+            list.add(entryNbt);
+        }
+        NbtCompound nbt = new NbtCompound();
+        nbt.put(PositionCodec.LEGACY_KEY, list);
+
+        Set<String> serverOnly = new HashSet<>();
+        Map<String, PositionData> read = readAll(nbt, serverOnly);
+
+        assertEquals(Map.of("home", home, "fortress", fortress), read);
+        assertTrue(serverOnly.isEmpty());
+    }
+
+    @Test
+    void legacyRewrittenAsPacked() {
+        NbtCompound entryNbt = new NbtCompound();
+        entryNbt.putString("id", "home");
+        PositionData home = new PositionData(OVERWORLD, 10.0, 70.0, -20.0, 45.0f, 10.0f);
+        entryNbt.put("position", home.toNbt());
+        NbtList list = new NbtList();
+        list.add(entryNbt);
+        NbtCompound legacy = new NbtCompound();
+        legacy.put(PositionCodec.LEGACY_KEY, list);
+
+        PositionTable table = new PositionTable();
+        PositionCodec.read(legacy, table::put);
+        NbtCompound packed = new NbtCompound();
+        PositionCodec.write(packed, table);
+
+        assertFalse(packed.contains(PositionCodec.LEGACY_KEY));
+        assertEquals(Map.of("home", home), readAll(packed, new HashSet<>()));
+    }
+
+    @Test
+    void extractKeepsWhicheverLayoutIsStored() {
+        assertNull(PositionCodec.extract(new NbtCompound()));
+
+        PositionTable table = new PositionTable();
+        table.put("a", new PositionData(OVERWORLD, 1, 2, 3, 4, 5));
+        NbtCompound nbt = new NbtCompound();
+        nbt.putString("unrelated", "kept out");
+        PositionCodec.write(nbt, table);
+
+        NbtCompound extracted = PositionCodec.extract(nbt);
+        assertNotNull(extracted);
+        assertFalse(extracted.contains("unrelated"));
+        assertEquals(readAll(nbt, new HashSet<>()), readAll(extracted, new HashSet<>()));
+    }
+
+    @Test
+    void truncatedPackedArraysAreCut() {
+        PositionTable table = new PositionTable();
+        table.put("a", new PositionData(OVERWORLD, 1, 2, 3, 4, 5));
+        table.put("b", new PositionData(OVERWORLD, 6, 7, 8, 9, 10));
+        NbtCompound nbt = new NbtCompound();
+        PositionCodec.write(nbt, table);
+
+        // One position's coordinates missing, only the complete one is read
+        NbtCompound packed = nbt.getCompound(PositionCodec.KEY);
+        long[] coords = packed.getLongArray("coords");
+        long[] cut = new long[3];
+        System.arraycopy(coords, 0, cut, 0, 3);
+        packed.putLongArray("coords", cut);
+
+        assertEquals(1, readAll(nbt, new HashSet<>()).size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.futurefrost.frostedlib.data;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Positions and checks shared by the data tests
+final class PositionFixtures {
+
+    static final RegistryKey<World> OVERWORLD =
+            RegistryKey.of(RegistryKeys.WORLD, new Identifier("minecraft", "overworld"));
+    static final RegistryKey<World> NETHER =
+            RegistryKey.of(RegistryKeys.WORLD, new Identifier("minecraft", "the_nether"));
+
+    // "Aa" and "BB" share a hash code, so these ids collide in every hash bit
+    static final List<String> COLLIDING = List.of("AaAa", "AaBB", "BBAa", "BBBB");
+
+    private PositionFixtures() {
+    }
+
+    // A distinct position for each n, alternating between two dimensions
+    static PositionData position(int n) {
+        return new PositionData(n % 2 == 0 ? OVERWORLD : NETHER, n, n + 0.5, -n, n, -n);
+    }
+
+    static void assertMatches(Map<String, PositionData> expected, Set<String> serverOnly, PositionTable table) {
+        assertMatches(expected, serverOnly, table.size(), table::get, table::isServerOnly, table::forEach);
+        assertEquals(expected, table.asMap());
+    }
+
+    static void assertMatches(Map<String, PositionData> expected, Set<String> serverOnly,
+                              PositionSnapshot snapshot) {
+        assertMatches(expected, serverOnly, snapshot.size(), snapshot::get, snapshot::isServerOnly,
+                snapshot::forEach);
+    }
+
+    private static void assertMatches(Map<String, PositionData> expected, Set<String> serverOnly, int size,
+                                      Function<String, PositionData> get, Predicate<String> isServerOnly,
+                                      Consumer<PositionTable.Visitor> forEach) {
+        assertEquals(expected.size(), size);
+        for (Map.Entry<String, PositionData> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), get.apply(entry.getKey()), entry.getKey());
+            assertEquals(serverOnly.contains(entry.getKey()), isServerOnly.test(entry.getKey()), entry.getKey());
+        }
+
+        // Iteration sees every position exactly once
+        Map<String, PositionData> visited = new HashMap<>();
+        forEach.accept((id, dimension, x, y, z, yaw, pitch, isServerOnlyId) ->
+                assertNull(visited.put(id, new PositionData(dimension, x, y, z, yaw, pitch)), id));
+        assertEquals(expected, visited);
+    }
+}
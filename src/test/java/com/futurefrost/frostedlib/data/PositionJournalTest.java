@@ -0,0 +1,175 @@
+package com.futurefrost.frostedlib.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.futurefrost.frostedlib.data.PositionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionJournalTest {
+
+    private static final UUID OWNER = new UUID(1, 2);
+    private static final UUID OTHER = new UUID(3, 4);
+
+    @TempDir
+    Path directory;
+
+    private static byte[] save(long sequence, UUID owner, String id, int n) {
+        return PositionJournal.encode(new PositionJournal.Record(PositionJournal.SAVE, sequence, owner, id,
+                position(n), false));
+    }
+
+    private static byte[] remove(long sequence, UUID owner, String id) {
+        return PositionJournal.encode(new PositionJournal.Record(PositionJournal.REMOVE, sequence, owner, id,
+                null, false));
+    }
+
+    private static byte[] clear(long sequence, UUID owner) {
+        return PositionJournal.encode(new PositionJournal.Record(PositionJournal.CLEAR, sequence, owner, "",
+                null, false));
+    }
+
+    // Header (magic, version, next sequence) followed by the frames
+    private static byte[] journal(long nextSequence, byte[]... frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(ByteBuffer.allocate(16).putInt(0x464C504A).putInt(1).putLong(nextSequence).array());
+        for (byte[] frame : frames) {
+            bytes.write(frame);
+        }
+        return bytes.toByteArray();
+    }
+
+    private long load(byte[] contents) throws IOException {
+        Path path = directory.resolve("test.journal");
+        Files.write(path, contents);
+        return PositionJournal.load(path);
+    }
+
+    private static Map<String, PositionData> replay(UUID owner, long savedSequence, SavedPositions positions) {
+        PositionJournal.replay(owner, savedSequence, positions);
+        return new HashMap<>(positions.view());
+    }
+
+    @Test
+    void replaysSavesAndRemovalsNewerThanTheSavedSequence() throws IOException {
+        long next = load(journal(1,
+                save(1, OWNER, "home", 1),
+                save(2, OWNER, "mine", 2),
+                remove(3, OWNER, "home"),
+                save(4, OTHER, "home", 4)));
+        assertEquals(5, next);
+
+        SavedPositions positions = new SavedPositions();
+        positions.put("home", position(0));
+        assertEquals(3, PositionJournal.replay(OWNER, 0, positions));
+        assertEquals(Map.of("mine", position(2)), new HashMap<>(positions.view()));
+
+        // Replayed once, the records are gone
+        assertEquals(7, PositionJournal.replay(OWNER, 7, new SavedPositions()));
+
+        // Other owners are untouched
+        assertEquals(Map.of("home", position(4)), replay(OTHER, 0, new SavedPositions()));
+    }
+
+    @Test
+    void recordsAlreadySavedAreSkipped() throws IOException {
+        load(journal(1,
+                save(1, OWNER, "home", 1),
+                save(2, OWNER, "mine", 2)));
+
+        SavedPositions positions = new SavedPositions();
+        positions.put("home", position(9));
+        assertEquals(2, PositionJournal.replay(OWNER, 1, positions));
+        assertEquals(Map.of("home", position(9), "mine", position(2)), new HashMap<>(positions.view()));
+    }
+
+    @Test
+    void clearDropsEarlierRecordsAndKeepsLaterOnes() throws IOException {
+        load(journal(1,
+                save(1, OWNER, "home", 1),
+                save(2, OWNER, "mine", 2),
+                clear(3, OWNER),
+                save(4, OWNER, "base", 4)));
+
+        SavedPositions positions = new SavedPositions();
+        positions.put("old", position(0));
+        assertEquals(4, PositionJournal.replay(OWNER, 0, positions));
+        assertEquals(Map.of("base", position(4)), new HashMap<>(positions.view()));
+    }
+
+    @Test
+    void clearAlreadySavedIsNotAppliedAgain() throws IOException {
+        load(journal(1,
+                clear(3, OWNER),
+                save(4, OWNER, "base", 4)));
+
+        // Saved after the clear, "kept" was added since and must survive
+        SavedPositions positions = new SavedPositions();
+        positions.put("kept", position(0));
+        assertEquals(4, PositionJournal.replay(OWNER, 3, positions));
+        assertEquals(Map.of("kept", position(0), "base", position(4)), new HashMap<>(positions.view()));
+    }
+
+    @Test
+    void clearAsTheLastRecordEmptiesThePositions() throws IOException {
+        load(journal(1,
+                save(1, OWNER, "home", 1),
+                clear(2, OWNER)));
+
+        SavedPositions positions = new SavedPositions();
+        positions.put("old", position(0));
+        assertEquals(2, PositionJournal.replay(OWNER, 1, positions));
+        assertTrue(positions.isEmpty());
+    }
+
+    @Test
+    void tornFrameEndsTheLog() throws IOException {
+        byte[] complete = journal(1,
+                save(1, OWNER, "home", 1),
+                save(2, OWNER, "mine", 2));
+        byte[] torn = save(3, OWNER, "base", 3);
+
+        // Crashed halfway through writing the last frame
+        byte[] contents = Arrays.copyOf(complete, complete.length + torn.length / 2);
+        System.arraycopy(torn, 0, contents, complete.length, torn.length / 2);
+
+        assertEquals(3, load(contents));
+        assertEquals(Map.of("home", position(1), "mine", position(2)), replay(OWNER, 0, new SavedPositions()));
+    }
+
+    @Test
+    void corruptFrameEndsTheLogEvenIfLaterFramesAreIntact() throws IOException {
+        byte[] corrupt = save(2, OWNER, "mine", 2);
+        corrupt[corrupt.length - 1] ^= 0x01;
+
+        long next = load(journal(1,
+                save(1, OWNER, "home", 1),
+                corrupt,
+                save(3, OWNER, "base", 3)));
+
+        assertEquals(2, next);
+        assertEquals(Map.of("home", position(1)), replay(OWNER, 0, new SavedPositions()));
+    }
+
+    @Test
+    void storedNextSequenceWinsWhenHigher() throws IOException {
+        assertEquals(100, load(journal(100, save(1, OWNER, "home", 1))));
+        assertEquals(100, load(journal(100)));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotJournals() {
+        assertThrows(IOException.class, () -> load(new byte[]{1, 2, 3}));
+        assertThrows(IOException.class, () -> load(new byte[16]));
+    }
+}
@@ -0,0 +1,158 @@
+package com.futurefrost.frostedlib.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.futurefrost.frostedlib.data.PositionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionSnapshotTest {
+
+    // Same mixing as the snapshot
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Two ids that land in the same root slot but split on the next level
+    private static String[] sharingRootSlot() {
+        Map<Integer, String> byRootSlot = new HashMap<>();
+        for (int i = 0; ; i++) {
+            String id = "id" + i;
+            String other = byRootSlot.putIfAbsent(hash(id) & 31, id);
+            if (other != null && ((hash(id) >>> 5) & 31) != ((hash(other) >>> 5) & 31)) {
+                return new String[]{other, id};
+            }
+        }
+    }
+
+    @Test
+    void fullyCollidingIdsShareACollisionNode() {
+        PositionSnapshot snapshot = PositionSnapshot.EMPTY;
+        Map<String, PositionData> expected = new HashMap<>();
+        for (int i = 0; i < COLLIDING.size(); i++) {
+            snapshot = snapshot.with(COLLIDING.get(i), position(i), i == 2);
+            expected.put(COLLIDING.get(i), position(i));
+        }
+        assertMatches(expected, Set.of("BBAa"), snapshot);
+        assertNull(snapshot.get("AaCC"));
+
+        // Replacing inside the collision node keeps the size
+        snapshot = snapshot.with("AaBB", position(7), false);
+        expected.put("AaBB", position(7));
+        assertMatches(expected, Set.of("BBAa"), snapshot);
+
+        Set<String> serverOnly = new HashSet<>(Set.of("BBAa"));
+        for (String id : List.of("BBBB", "AaAa", "BBAa")) {
+            snapshot = snapshot.without(id);
+            expected.remove(id);
+            serverOnly.remove(id);
+            assertMatches(expected, serverOnly, snapshot);
+        }
+
+        // The last leaf of the collision node is pulled up to the root
+        assertEquals(1, snapshot.depth("AaBB"));
+        assertTrue(snapshot.without("AaBB").isEmpty());
+    }
+
+    @Test
+    void removalPullsTheRemainingLeafUp() {
+        String[] ids = sharingRootSlot();
+        PositionSnapshot both = PositionSnapshot.EMPTY
+                .with(ids[0], position(0), false)
+                .with(ids[1], position(1), false);
+        assertEquals(2, both.depth(ids[0]));
+        assertEquals(2, both.depth(ids[1]));
+
+        PositionSnapshot one = both.without(ids[1]);
+        assertEquals(1, one.depth(ids[0]));
+        assertEquals(-1, one.depth(ids[1]));
+        assertEquals(position(0), one.get(ids[0]));
+    }
+
+    @Test
+    void olderSnapshotsAreUnchanged() {
+        PositionSnapshot first = PositionSnapshot.EMPTY.with("home", position(1), false);
+        PositionSnapshot second = first.with("home", position(2), true).with("mine", position(3), false);
+        PositionSnapshot third = second.without("home");
+
+        assertEquals(position(1), first.get("home"));
+        assertFalse(first.isServerOnly("home"));
+        assertEquals(1, first.size());
+        assertEquals(position(2), second.get("home"));
+        assertEquals(2, second.size());
+        assertNull(third.get("home"));
+        assertEquals(1, third.size());
+    }
+
+    @Test
+    void removingAMissingIdReturnsTheSameSnapshot() {
+        PositionSnapshot snapshot = PositionSnapshot.EMPTY.with("home", position(1), false);
+        assertSame(snapshot, snapshot.without("missing"));
+        assertSame(PositionSnapshot.EMPTY, PositionSnapshot.EMPTY.without("missing"));
+    }
+
+    @Test
+    void copyOfMatchesTheTable() {
+        PositionTable table = new PositionTable();
+        Map<String, PositionData> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            table.put("p" + i, position(i), i % 10 == 0);
+            expected.put("p" + i, position(i));
+        }
+        Set<String> serverOnly = new HashSet<>();
+        for (int i = 0; i < 100; i += 10) {
+            serverOnly.add("p" + i);
+        }
+
+        assertMatches(expected, serverOnly, PositionSnapshot.copyOf(table));
+    }
+
+    @Test
+    void randomOperationsMatchAHashMap() {
+        Random random = new Random(5678);
+        PositionSnapshot snapshot = PositionSnapshot.EMPTY;
+        Map<String, PositionData> expected = new HashMap<>();
+        Set<String> serverOnly = new HashSet<>();
+
+        List<String> ids = new ArrayList<>(COLLIDING);
+        for (int i = 0; i < 200; i++) {
+            ids.add("id" + i);
+        }
+
+        for (int step = 0; step < 20000; step++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                snapshot = snapshot.without(id);
+                expected.remove(id);
+                serverOnly.remove(id);
+            } else {
+                PositionData position = position(random.nextInt(1000));
+                boolean isServerOnly = random.nextInt(4) == 0;
+                snapshot = snapshot.with(id, position, isServerOnly);
+                expected.put(id, position);
+                if (isServerOnly) serverOnly.add(id);
+                else serverOnly.remove(id);
+            }
+
+            if (step % 97 == 0) {
+                assertMatches(expected, serverOnly, snapshot);
+            }
+        }
+        assertMatches(expected, serverOnly, snapshot);
+
+        // Emptied completely, nothing is left behind
+        for (String id : ids) {
+            snapshot = snapshot.without(id);
+        }
+        assertTrue(snapshot.isEmpty());
+        assertMatches(Map.of(), Set.of(), snapshot);
+    }
+}
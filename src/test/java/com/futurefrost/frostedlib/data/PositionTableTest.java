@@ -0,0 +1,149 @@
+package com.futurefrost.frostedlib.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.futurefrost.frostedlib.data.PositionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTableTest {
+
+    @Test
+    void collidingIdsStayReachableAfterRemovingFromTheMiddleOfTheirRun() {
+        PositionTable table = new PositionTable();
+        Map<String, PositionData> expected = new HashMap<>();
+        for (int i = 0; i < COLLIDING.size(); i++) {
+            table.put(COLLIDING.get(i), position(i));
+            expected.put(COLLIDING.get(i), position(i));
+        }
+
+        // The later entries of the probe run have to shift back into the gap
+        assertTrue(table.remove("AaBB"));
+        expected.remove("AaBB");
+        assertMatches(expected, Set.of(), table);
+        assertFalse(table.contains("AaBB"));
+
+        assertTrue(table.remove("AaAa"));
+        expected.remove("AaAa");
+        assertMatches(expected, Set.of(), table);
+
+        // Re-inserting reuses the freed buckets
+        table.put("AaBB", position(9));
+        expected.put("AaBB", position(9));
+        assertMatches(expected, Set.of(), table);
+    }
+
+    @Test
+    void removingMovesLastSlotIntoTheGap() {
+        PositionTable table = new PositionTable();
+        table.put("a", position(1));
+        table.put("b", position(2), true);
+        table.put("c", position(3));
+
+        assertTrue(table.remove("a"));
+
+        // "c" took slot 0 and must keep its own values and lookup
+        List<String> order = new ArrayList<>();
+        table.forEach((id, dimension, x, y, z, yaw, pitch, serverOnly) -> order.add(id));
+        assertEquals(List.of("c", "b"), order);
+        assertEquals(position(3), table.get("c"));
+        assertTrue(table.isServerOnly("b"));
+        assertFalse(table.isServerOnly("c"));
+    }
+
+    @Test
+    void removingTheLastSlotAndMissingIds() {
+        PositionTable table = new PositionTable();
+        table.put("only", position(1));
+
+        assertFalse(table.remove("missing"));
+        assertTrue(table.remove("only"));
+        assertFalse(table.remove("only"));
+        assertTrue(table.isEmpty());
+        assertNull(table.get("only"));
+    }
+
+    @Test
+    void putOverwritesInPlace() {
+        PositionTable table = new PositionTable();
+        table.put("home", position(1), true);
+        table.put("home", position(2));
+
+        assertEquals(1, table.size());
+        assertEquals(position(2), table.get("home"));
+        assertFalse(table.isServerOnly("home"));
+    }
+
+    @Test
+    void copyIsIndependent() {
+        PositionTable table = new PositionTable();
+        for (int i = 0; i < 10; i++) {
+            table.put("p" + i, position(i));
+        }
+
+        PositionTable copy = new PositionTable();
+        copy.copyFrom(table);
+        table.remove("p3");
+        table.put("p4", position(40));
+
+        assertEquals(10, copy.size());
+        assertEquals(position(3), copy.get("p3"));
+        assertEquals(position(4), copy.get("p4"));
+    }
+
+    @Test
+    void clearThenReuse() {
+        PositionTable table = new PositionTable();
+        for (int i = 0; i < 10; i++) {
+            table.put("p" + i, position(i));
+        }
+
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertFalse(table.contains("p1"));
+
+        table.put("p1", position(1));
+        assertEquals(position(1), table.get("p1"));
+    }
+
+    @Test
+    void randomOperationsMatchAHashMap() {
+        Random random = new Random(1234);
+        PositionTable table = new PositionTable();
+        Map<String, PositionData> expected = new HashMap<>();
+        Set<String> serverOnly = new HashSet<>();
+
+        // Few distinct ids, many colliding, so runs form, wrap around and get cut often
+        List<String> ids = new ArrayList<>(COLLIDING);
+        for (int i = 0; i < 40; i++) {
+            ids.add("id" + i);
+        }
+
+        for (int step = 0; step < 20000; step++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, table.remove(id), id);
+                serverOnly.remove(id);
+            } else {
+                PositionData position = position(random.nextInt(1000));
+                boolean isServerOnly = random.nextInt(4) == 0;
+                table.put(id, position, isServerOnly);
+                expected.put(id, position);
+                if (isServerOnly) serverOnly.add(id);
+                else serverOnly.remove(id);
+            }
+
+            if (step % 97 == 0) {
+                assertMatches(expected, serverOnly, table);
+            }
+        }
+        assertMatches(expected, serverOnly, table);
+    }
+}